@@ -0,0 +1,71 @@
+package pl.felixspeagel.calcal.calculators;
+
+import org.openjdk.jmh.annotations.*;
+import pl.felixspeagel.calcal.calendar.Calendar;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every calendar solver, from the year and month lengths to an example calendar.
+ * The cycles they find grow with the denominators.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalendarCreatorBenchmark {
+	
+	/**
+	 * Year and month length as "I N/D;I N/D".
+	 */
+	@Param({
+			"365 1/4;29 1/2",                          // small denominators
+			"365 2425/10000;29 191/360",               // Gregorian year and Islamic month
+			"365 242189/1000000;29 530589/1000000"     // large denominators
+	})
+	public String lengths;
+	
+	private MixedFraction year_length;
+	private MixedFraction month_length;
+	private static final int MONTH_COUNT = 12;
+	
+	@Setup
+	public void setup() {
+		var parts = lengths.split( ";" );
+		year_length = MixedFraction.fromString( parts[0] );
+		month_length = MixedFraction.fromString( parts[1] );
+	}
+	
+	@Benchmark
+	public Calendar egyptian() {
+		return new Egyptian( year_length, month_length, MONTH_COUNT )
+				.makeExampleCalendar( year_length, month_length, MONTH_COUNT );
+	}
+	
+	@Benchmark
+	public Calendar gregorian() {
+		return new Gregorian( year_length )
+				.makeExampleCalendar( year_length, month_length, MONTH_COUNT );
+	}
+	
+	@Benchmark
+	public Calendar islamic() {
+		return new Islamic( month_length, MONTH_COUNT )
+				.makeExampleCalendar( year_length, month_length, MONTH_COUNT );
+	}
+	
+	@Benchmark
+	public Calendar metonicCycle() {
+		return new MetonicCycle( year_length, month_length, MONTH_COUNT )
+				.makeExampleCalendar( year_length, month_length, MONTH_COUNT );
+	}
+	
+	@Benchmark
+	public Calendar pureLunar() {
+		return new PureLunar( month_length, MONTH_COUNT )
+				.makeExampleCalendar( year_length, month_length, MONTH_COUNT );
+	}
+}
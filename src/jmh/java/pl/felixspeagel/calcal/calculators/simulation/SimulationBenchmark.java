@@ -0,0 +1,119 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import org.openjdk.jmh.annotations.*;
+import pl.felixspeagel.calcal.calculators.Gregorian;
+import pl.felixspeagel.calcal.calculators.Islamic;
+import pl.felixspeagel.calcal.calendar.Calendar;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Laying out the days of a month, and walking through the months, for a calendar
+ * with leap rules and one with a leap cycle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimulationBenchmark {
+	
+	private static final MixedFraction YEAR = new MixedFraction( 365, 2425, 10000 );
+	private static final MixedFraction MONTH = new MixedFraction( 29, 191, 360 );
+	private static final int MONTH_NAVIGATION_STEPS = 1_000_000;
+	
+	@Param({"gregorian", "islamic"})
+	public String calendar;
+	
+	@Param({"false", "true"})
+	public boolean reals;
+	
+	/**
+	 * The year to display, far from the epoch so the leap counts aren't trivial.
+	 */
+	@Param({"2024", "1000000000"})
+	public String year;
+	
+	private Simulation simulation;
+	
+	@Setup
+	public void setup() {
+		Calendar the_calendar = switch( calendar ) {
+			case "gregorian" -> new Gregorian( YEAR ).makeExampleCalendar( YEAR, MONTH, 12 );
+			case "islamic" -> new Islamic( MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 );
+			default -> throw new IllegalArgumentException( calendar );
+		};
+		if( reals ) {
+			simulation = new Simulation( the_calendar, 0, BigInteger.ZERO,
+					MONTH, YEAR,
+					MixedFraction.ZERO, MixedFraction.ZERO );
+		} else {
+			simulation = new Simulation( the_calendar, 0, BigInteger.ZERO,
+					null, null,
+					null, null );
+		}
+		simulation.setEraYear( new BigInteger( year ) );
+		simulation.gotoFirstMonth();
+	}
+	
+	@Benchmark
+	public DayInMonth[][] listOfDaysInTheMonth() {
+		return simulation.getListOfDaysInTheMonth();
+	}
+	
+	/**
+	 * A million months forward and back again, so every invocation starts from the same month.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2, time = 1)
+	@Measurement(iterations = 3, time = 1)
+	public BigInteger navigateMillionMonths() {
+		for(int i=0; i<MONTH_NAVIGATION_STEPS; i++) {
+			simulation.gotoNextMonth();
+		}
+		var reached = simulation.getEraYear();
+		for(int i=0; i<MONTH_NAVIGATION_STEPS; i++) {
+			simulation.gotoPreviousMonth();
+		}
+		return reached;
+	}
+	
+	/**
+	 * The same million months as one jump each way.
+	 */
+	@Benchmark
+	public BigInteger jumpMillionMonths() {
+		simulation.moveByMonths( BigInteger.valueOf( MONTH_NAVIGATION_STEPS ) );
+		var reached = simulation.getEraYear();
+		simulation.moveByMonths( BigInteger.valueOf( -MONTH_NAVIGATION_STEPS ) );
+		return reached;
+	}
+	
+	/**
+	 * Counts the full moons of a thousand years from the day stream, walked in one thread and in all of them.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2, time = 1)
+	@Measurement(iterations = 3, time = 1)
+	public long streamThousandYears() {
+		var from = simulation.getEraYear();
+		return simulation.getEngine().streamOfDays( from, from.add( BigInteger.valueOf( 1000 ) ) )
+				.filter( day -> day.border_moon() == MoonPhase.FULL_MOON )
+				.count();
+	}
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2, time = 1)
+	@Measurement(iterations = 3, time = 1)
+	public long parallelStreamThousandYears() {
+		var from = simulation.getEraYear();
+		return simulation.getEngine().streamOfDays( from, from.add( BigInteger.valueOf( 1000 ) ) ).parallel()
+				.filter( day -> day.border_moon() == MoonPhase.FULL_MOON )
+				.count();
+	}
+}
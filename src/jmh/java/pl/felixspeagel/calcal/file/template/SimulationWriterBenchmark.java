@@ -0,0 +1,64 @@
+package pl.felixspeagel.calcal.file.template;
+
+import org.openjdk.jmh.annotations.*;
+import pl.felixspeagel.calcal.calculators.Gregorian;
+import pl.felixspeagel.calcal.calculators.simulation.Simulation;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * HTML export of a Gregorian calendar with the moon and the seasons over a range of years.
+ * One export takes long enough to be timed on its own.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimulationWriterBenchmark {
+	
+	private static final MixedFraction YEAR = new MixedFraction( 365, 2425, 10000 );
+	private static final MixedFraction MONTH = new MixedFraction( 29, 530589, 1000000 );
+	
+	@Param({"100", "1000", "10000"})
+	public int years;
+	
+	private SimulationWriter writer;
+	private File file;
+	
+	@Setup
+	public void setup() throws IOException {
+		var calendar = new Gregorian( YEAR ).makeExampleCalendar( YEAR, MONTH, 12 );
+		var simulation = new Simulation( calendar, 0, BigInteger.ZERO,
+				MONTH, YEAR,
+				MixedFraction.ZERO, MixedFraction.ZERO );
+		writer = SimulationWriter.getInstance( new AtomicReference<>( simulation ) );
+		if( writer == null ) {
+			throw new IllegalStateException( "Templates not found on the class path." );
+		}
+		writer.settings.title = "Benchmark";
+		writer.settings.year_start = BigInteger.ONE;
+		writer.settings.year_end = BigInteger.valueOf( years );
+		
+		file = File.createTempFile( "calcal-benchmark", ".html" );
+		file.deleteOnExit();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		//noinspection ResultOfMethodCallIgnored
+		file.delete();
+	}
+	
+	@Benchmark
+	public long writeFile() {
+		writer.writeFile( file );
+		return file.length();
+	}
+}
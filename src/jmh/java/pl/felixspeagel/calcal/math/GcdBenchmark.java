@@ -0,0 +1,85 @@
+package pl.felixspeagel.calcal.math;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Functions#gcd} with the textbook Euclid loop it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GcdBenchmark {
+	
+	/**
+	 * Pairs as they show up when fractions are reduced: "numerator/denominator".
+	 */
+	@Param({
+			"2425/10000",       // 365.2425 days
+			"191/360",          // 29 191/360 days
+			"87300/3600000",    // sum of the above before reducing
+			"242189/999999999999", // 12-digit period
+			"123456789012345678901234567890/987654321098765432109876543210" // too big for a long
+	})
+	public String pair;
+	
+	private BigInteger a;
+	private BigInteger b;
+	private long a_long;
+	private long b_long;
+	
+	@Setup
+	public void setup() {
+		var parts = pair.split( "/" );
+		a = new BigInteger( parts[0] );
+		b = new BigInteger( parts[1] );
+		a_long = a.longValue();
+		b_long = b.longValue();
+	}
+	
+	/**
+	 * The loop {@code Functions.gcd} used before.
+	 */
+	private static BigInteger textbookGcd(BigInteger a, BigInteger b) {
+		if( a.compareTo( BigInteger.ZERO) < 0) { // a < 0
+			a = a.multiply( BigInteger.valueOf( -1 ) ); // a *= -1
+		}
+		if( b.compareTo( BigInteger.ZERO ) < 0 ) { // b < 0
+			b = b.multiply( BigInteger.valueOf( -1 ) ); // b *= -1
+		}
+		
+		BigInteger t;
+		while(!b.equals( BigInteger.ZERO )) { // b != 0
+			t = b;
+			b = a.mod( b );
+			a = t;
+		}
+		return a;
+	}
+	
+	@Benchmark
+	public BigInteger textbook() {
+		return textbookGcd( a, b );
+	}
+	
+	@Benchmark
+	public BigInteger tiered() {
+		return Functions.gcd( a, b );
+	}
+	
+	@Benchmark
+	public long binaryLong() {
+		// meaningless for the pair which doesn't fit, kept for a uniform table
+		return Functions.gcd( a_long, b_long );
+	}
+	
+	@Benchmark
+	public BigInteger bigIntegerGcd() {
+		return a.gcd( b );
+	}
+}
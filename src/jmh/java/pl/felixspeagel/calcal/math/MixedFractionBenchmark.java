@@ -0,0 +1,86 @@
+package pl.felixspeagel.calcal.math;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arithmetic and parsing of {@link MixedFraction}, with operands which fit into a long and ones which don't.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MixedFractionBenchmark {
+	
+	/**
+	 * Two operands as "I N/D;I N/D".
+	 */
+	@Param({
+			"365 2425/10000;29 191/360",                // Gregorian year and Islamic month
+			"365 242189/1000000;29 530589/1000000",     // measured tropical year and synodic month
+			"12345678901234567890 1/98765432109876543210;3 1/7" // too big for a long
+	})
+	public String operands;
+	
+	private MixedFraction a;
+	private MixedFraction b;
+	private String a_text;
+	private String a_decimal;
+	
+	@Setup
+	public void setup() {
+		Locale.setDefault( Locale.ROOT );
+		var parts = operands.split( ";" );
+		a_text = parts[0];
+		a = MixedFraction.fromString( parts[0] );
+		b = MixedFraction.fromString( parts[1] );
+		// a long period is cut short, parse what is left of it
+		a_decimal = NumberConverter.FractionToDecimalText( a, 40 )
+				.replace( NumberConverter.ELLIPSIS, "" )
+				.replace( "()", "" );
+	}
+	
+	@Benchmark
+	public MixedFraction add() {
+		return a.add( b );
+	}
+	
+	@Benchmark
+	public MixedFraction subtract() {
+		return a.subtract( b );
+	}
+	
+	@Benchmark
+	public MixedFraction multiply() {
+		return a.multiply( b );
+	}
+	
+	@Benchmark
+	public MixedFraction divide() {
+		return a.divide( b );
+	}
+	
+	@Benchmark
+	public int compare() {
+		return a.compareTo( b );
+	}
+	
+	@Benchmark
+	public MixedFraction parseFraction() {
+		return MixedFraction.fromString( a_text );
+	}
+	
+	@Benchmark
+	public MixedFraction parseDecimal() throws WrongNumberFormat {
+		return NumberConverter.DecimalTextToFraction( a_decimal );
+	}
+	
+	@Benchmark
+	public String formatDecimal() {
+		return NumberConverter.FractionToDecimalText( a, 40 );
+	}
+}
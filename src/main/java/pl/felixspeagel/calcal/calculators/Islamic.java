@@ -2,6 +2,7 @@ package pl.felixspeagel.calcal.calculators;
 
 import pl.felixspeagel.calcal.calendar.Calendar;
 import pl.felixspeagel.calcal.calendar.SpecialFeature;
+import pl.felixspeagel.calcal.math.FractionAccumulator;
 import pl.felixspeagel.calcal.math.MixedFraction;
 
 import java.math.BigInteger;
@@ -28,29 +29,30 @@ public class Islamic implements CalendarCreator {
 	public Islamic(MixedFraction month_length, int months_in_year) {
 		final var hollow_month = month_length.floor();
 		var shouldBeDays = BigInteger.ZERO;
-		var cumulative = MixedFraction.ZERO;
+		var months_sum = new FractionAccumulator();
 		
 		for(int month=1; month<=months_in_year; month++) {
-			cumulative = cumulative.add(month_length);
+			months_sum.add(month_length);
 			shouldBeDays = shouldBeDays.add( hollow_month );
 			if(month % 2 == 0) {
 				shouldBeDays = shouldBeDays.add( BigInteger.ONE );
 			}
 		}
-		cumulative = cumulative.getFraction();
+		var cumulative = months_sum.getFraction();
 		
 		final var cycle_length = cumulative.getDenominator();
 		days_to_add = cumulative.getNumerator();
 		days_in_year = shouldBeDays;
 		var cycle_result = new LinkedList<IntercalationType>();
 		
-		cumulative = MixedFraction.ZERO;
+		// surplus = (sum of real years) - (days_in_year * year) - (leap days so far)
+		final var yearly_surplus = month_length.multiply( months_in_year ).subtract( days_in_year );
+		var surplus = new FractionAccumulator();
 		for(var year=BigInteger.ONE; year.compareTo( cycle_length ) <= 0; year=year.add(BigInteger.ONE)) {
-			cumulative = cumulative.add(month_length.multiply( months_in_year ));
-			var surplus = cumulative.subtract( days_in_year.multiply( year ) );
+			surplus.add( yearly_surplus );
 			
 			if( surplus.compareTo( MixedFraction.ONE_HALF ) > 0) { // surplus > 1/2
-				cumulative = cumulative.subtract( BigInteger.ONE );
+				surplus.add( -1 );
 				cycle_result.add( IntercalationType.LEAP );
 			} else {
 				cycle_result.add( IntercalationType.NORMAL );
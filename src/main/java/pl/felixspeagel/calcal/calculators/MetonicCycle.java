@@ -2,10 +2,13 @@ package pl.felixspeagel.calcal.calculators;
 
 import pl.felixspeagel.calcal.calendar.Calendar;
 import pl.felixspeagel.calcal.calendar.SpecialFeature;
+import pl.felixspeagel.calcal.math.ContinuedFraction;
+import pl.felixspeagel.calcal.math.FractionAccumulator;
 import pl.felixspeagel.calcal.math.MixedFraction;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Calculates a Meton cycle out of year and month lengths.
@@ -15,50 +18,90 @@ public class MetonicCycle implements CalendarCreator {
 	public final int years;
 	public final int months;
 	public final IntercalationType[] cycle;
+	/**
+	 * Other cycles the user may prefer, shortest first
+	 */
+	public final List<CycleCandidate> candidates;
+	
+	/**
+	 * The longest cycle listed in {@link #candidates}
+	 */
+	public static final int CANDIDATE_YEARS = 10000;
+	
+	/**
+	 * A cycle of whole years and months.
+	 * @param years years in the cycle
+	 * @param months months in the cycle
+	 * @param drift years * year_length - months * month_length, in days
+	 * @param convergent true if no shorter cycle drifts less
+	 */
+	public record CycleCandidate(int years, int months, MixedFraction drift, boolean convergent) {
+	}
+	
+	/**
+	 * Lists the cycles coming from the convergents and semiconvergents of year_length / month_length.
+	 * @param max_years the longest cycle to list
+	 * @return the cycles, shortest first
+	 */
+	public static List<CycleCandidate> findCycles(MixedFraction year_length, MixedFraction month_length, int max_years) {
+		var result = new ArrayList<CycleCandidate>();
+		var ratio = year_length.divide( month_length );
+		for(var approximation : ContinuedFraction.approximations( ratio, BigInteger.valueOf( max_years ) )) {
+			var years = approximation.denominator();
+			var months = approximation.numerator();
+			if( months.bitLength() > 31 ) break;
+			var drift = year_length.multiply( years ).subtract( month_length.multiply( months ) );
+			result.add( new CycleCandidate( years.intValueExact(), months.intValueExact(), drift, approximation.convergent() ) );
+		}
+		return result;
+	}
 	
 	public MetonicCycle(MixedFraction year_length, MixedFraction month_length, int expected_months) {
 		final var stopMargin = new MixedFraction( BigInteger.ONE );
 		ArrayList<IntercalationType> buildCycle = new ArrayList<>();
 		
-		var thisMargin = year_length.subtract( month_length ).abs();
-		int yearCount = 1;
-		int monthCount = 0;
-		var monthDays = MixedFraction.ZERO;
-		var yearDays = year_length;
-		
-		while( thisMargin.compareTo( stopMargin ) > 0 ) {
-			monthCount++;
-			monthDays = month_length.multiply( BigInteger.valueOf( monthCount ) );
-			thisMargin = yearDays.subtract( monthDays ).abs();
-			
-			if( yearDays.compareTo( monthDays ) < 0 && thisMargin.compareTo( stopMargin ) > 0 ) {
-				yearCount++;
-				yearDays = year_length.multiply( BigInteger.valueOf( yearCount ) );
+		// the shortest cycle drifting at most a day is always a convergent
+		var all_cycles = findCycles( year_length, month_length, Integer.MAX_VALUE );
+		CycleCandidate found = null;
+		for(var candidate : all_cycles) {
+			if( candidate.convergent() && candidate.drift().abs().compareTo( stopMargin ) <= 0 ) {
+				found = candidate;
+				break;
 			}
 		}
-		years = yearCount;
-		months = monthCount;
+		if( found == null ) {
+			throw new ArithmeticException("No cycle shorter than " + Integer.MAX_VALUE + " years.");
+		}
+		years = found.years();
+		months = found.months();
+		var shorter_cycles = new ArrayList<CycleCandidate>();
+		for(var candidate : all_cycles) {
+			if( candidate.years() > Math.max( CANDIDATE_YEARS, years ) ) break;
+			shorter_cycles.add( candidate );
+		}
+		candidates = shorter_cycles;
 		
 		//TODO: find a better algorithm. The bellow gives a *wrong* list
 		
 		var days_a = month_length.floor();
 		var days_b = month_length.ceil();
 		BigInteger temp;
-		yearDays = MixedFraction.ZERO;
+		// year_length * year - yearDays
+		var diff = new FractionAccumulator();
 		
 		for(int year=1; year<=years; year++) {
 			for(int month=0; month<expected_months; month++) {
-				yearDays = yearDays.add( month_length );
+				diff.subtract( month_length );
 				//swap a <> b
 				temp = days_a;
 				days_a = days_b;
 				days_b = temp;
 			}
-			var diff = year_length.multiply( year ).subtract( yearDays );
+			diff.add( year_length );
 			//System.out.print("Year "+year+": "+yearDays+"\t"+diff+"\t\t");
 			if( diff.compareTo( new MixedFraction( days_a ) ) >= 0 ) {
 				//extra month
-				yearDays = yearDays.add( month_length );
+				diff.subtract( month_length );
 				//swap a <> b
 				temp = days_a;
 				days_a = days_b;
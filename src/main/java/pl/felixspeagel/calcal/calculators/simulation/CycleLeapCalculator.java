@@ -7,62 +7,86 @@ import java.math.BigInteger;
 public class CycleLeapCalculator implements LeapCalculator {
 	
 	private final IntercalationType[] the_cycle;
+	private final BigInteger cycle_length;
+	/**
+	 * leaps_before[i] is the number of leap years among the first i years of the cycle.
+	 */
+	private final int[] leaps_before;
 	private final int leap_years_in_cycle;
 	
 	public CycleLeapCalculator(IntercalationType[] cycle) {
 		the_cycle = cycle;
+		cycle_length = BigInteger.valueOf( the_cycle.length );
 		year_in_cycle = 1;
 		
-		int leap_years = 0;
+		leaps_before = new int[the_cycle.length + 1];
 		for(int i=0; i<the_cycle.length; i++) {
+			leaps_before[i+1] = leaps_before[i];
 			if( the_cycle[i] == IntercalationType.LEAP ) {
-				leap_years++;
+				leaps_before[i+1]++;
 			}
 		}
-		leap_years_in_cycle = leap_years;
+		leap_years_in_cycle = leaps_before[the_cycle.length];
 	}
 	
 	private int year_in_cycle;
 	
 	@Override
 	public void setEraYear(BigInteger year) {
-		year_in_cycle = year.remainder( BigInteger.valueOf( the_cycle.length ) ).intValue() - 1;
-		if( year_in_cycle < 0 ) {
-			year_in_cycle += the_cycle.length;
+		year_in_cycle = positionInCycle( year );
+	}
+	
+	/**
+	 * Year 1 is at 0, year 0 at the end of the cycle.
+	 */
+	private int positionInCycle(BigInteger year) {
+		int remainder;
+		if( year.bitLength() < 64 ) {
+			remainder = (int) Math.floorMod( year.longValue(), (long) the_cycle.length );
+		} else {
+			remainder = year.mod( cycle_length ).intValue();
 		}
+		return remainder == 0 ? the_cycle.length - 1 : remainder - 1;
 	}
 	
+	/**
+	 * Counts the leap years from 1 to the year, or from the year to 0 if it isn't positive.
+	 * Year 1 is the first of the cycle, year 0 the last one.
+	 */
 	@Override
 	public BigInteger leapYearsUntil(BigInteger year) {
-		BigInteger full_cycles;
-		if( year.compareTo( BigInteger.ZERO ) <= 0 ) {
-			full_cycles = year.subtract( BigInteger.ONE ).abs().divide( BigInteger.valueOf( the_cycle.length ) );
-		} else {
-			full_cycles = year.divide( BigInteger.valueOf( the_cycle.length ) );
-		}
-		full_cycles = full_cycles.multiply( BigInteger.valueOf( leap_years_in_cycle ) );
-		
-		var remainder = year.remainder( BigInteger.valueOf( the_cycle.length ) ).intValue();
+		// years before 1 are counted backwards from the end of the cycle
+		var positive = year.signum() > 0;
+		var years = positive ? year : BigInteger.ONE.subtract( year );
 		
-		if( remainder > 0 ) {
-			for( int i = 0; i < remainder; i++ ) {
-				if( the_cycle[i] == IntercalationType.LEAP ) {
-					full_cycles = full_cycles.add( BigInteger.ONE );
-				}
-			}
-		} else {
-			for( int i = (the_cycle.length-1); i >= (the_cycle.length+remainder-1) ; i-- ) {
-				if( the_cycle[i] == IntercalationType.LEAP ) {
-					full_cycles = full_cycles.add( BigInteger.ONE );
-				}
-			}
+		if( years.bitLength() < 63 ) {
+			long count = years.longValue();
+			long full_cycles = count / the_cycle.length;
+			int rest = (int) ( count % the_cycle.length );
+			return BigInteger.valueOf( full_cycles * leap_years_in_cycle + leapsInPart( rest, positive ) );
 		}
-		
-		return full_cycles;
+		var division = years.divideAndRemainder( cycle_length );
+		return division[0].multiply( BigInteger.valueOf( leap_years_in_cycle ) )
+				.add( BigInteger.valueOf( leapsInPart( division[1].intValue(), positive ) ) );
+	}
+	
+	/**
+	 * Leap years among the first (or the last) years of the cycle.
+	 */
+	private int leapsInPart(int years, boolean from_beginning) {
+		if( from_beginning ) {
+			return leaps_before[years];
+		}
+		return leap_years_in_cycle - leaps_before[the_cycle.length - years];
 	}
 	
 	@Override
 	public boolean isLeapYear() {
 		return the_cycle[year_in_cycle] == IntercalationType.LEAP;
 	}
+	
+	@Override
+	public boolean isLeapYear(BigInteger year) {
+		return the_cycle[positionInCycle( year )] == IntercalationType.LEAP;
+	}
 }
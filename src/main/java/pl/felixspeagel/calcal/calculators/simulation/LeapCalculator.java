@@ -1,5 +1,8 @@
 package pl.felixspeagel.calcal.calculators.simulation;
 
+import pl.felixspeagel.calcal.calculators.Rule;
+import pl.felixspeagel.calcal.calendar.CompiledCalendar;
+
 import java.math.BigInteger;
 
 public interface LeapCalculator {
@@ -7,4 +10,22 @@ public interface LeapCalculator {
 	
 	BigInteger leapYearsUntil(BigInteger year);
 	boolean isLeapYear();
+	
+	/**
+	 * Tells if any year is leap, without changing the current one.
+	 */
+	boolean isLeapYear(BigInteger year);
+	
+	/**
+	 * Makes a calculator for the calendar's leap cycle, or its rules which are turned on.
+	 */
+	static LeapCalculator of(CompiledCalendar calendar) {
+		if( calendar.hasCycle() ) {
+			return new CycleLeapCalculator( calendar.getCycle() );
+		} else if( calendar.hasLeapRules() ) {
+			return new RulesLeapCalculator( calendar.getActiveRules() );
+		} else {
+			return new RulesLeapCalculator( new Rule[0] ); //no leap years
+		}
+	}
 }
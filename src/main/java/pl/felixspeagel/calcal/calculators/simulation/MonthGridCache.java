@@ -0,0 +1,99 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the last laid out months, so going back and forth between them computes nothing.
+ * <p>
+ * A month is stored together with the engine it came from. Every change of the simulation settings makes
+ * a new engine, so a month laid out with the old settings is never returned; {@link #invalidate()} just
+ * frees them early. When the cache is full, the month used least recently goes out.
+ * It can be used from many threads, the months are laid out outside the lock.
+ */
+public final class MonthGridCache {
+	
+	private record Key(SimulationEngine engine, BigInteger era_year, int month) {
+	}
+	
+	private final Map<Key, DayInMonth[][]> grids;
+	private long hits;
+	private long misses;
+	
+	/**
+	 * @param capacity how many months are kept
+	 */
+	public MonthGridCache(int capacity) {
+		grids = new LinkedHashMap<>( 16, 0.75f, true ) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, DayInMonth[][]> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+	
+	/**
+	 * Gives the month from the cache, or lays it out and keeps it.
+	 * @return the weeks of the month, shared with other callers so they mustn't be changed
+	 */
+	public DayInMonth[][] get(SimulationEngine engine, BigInteger era_year, int month) {
+		var key = new Key( engine, era_year, month );
+		synchronized( this ) {
+			var grid = grids.get( key );
+			if( grid != null ) {
+				hits++;
+				return grid;
+			}
+			misses++;
+		}
+		var grid = engine.getListOfDaysInTheMonth( era_year, month );
+		synchronized( this ) {
+			// somebody else could have been quicker, keep their copy
+			var present = grids.putIfAbsent( key, grid );
+			return present != null ? present : grid;
+		}
+	}
+	public DayInMonth[][] get(Simulation simulation) {
+		return get( simulation.getEngine(), simulation.getEraYear(), simulation.getMonth() );
+	}
+	
+	/**
+	 * Lays the month out if it isn't in the cache yet. It isn't a use of the month,
+	 * so it counts neither as a hit nor as a miss, and the month doesn't get any newer.
+	 */
+	public void prefetch(SimulationEngine engine, BigInteger era_year, int month) {
+		var key = new Key( engine, era_year, month );
+		synchronized( this ) {
+			if( grids.containsKey( key ) ) return;
+		}
+		var grid = engine.getListOfDaysInTheMonth( era_year, month );
+		synchronized( this ) {
+			grids.putIfAbsent( key, grid );
+		}
+	}
+	
+	/**
+	 * Tells if the month is in the cache, without counting it as a use.
+	 */
+	public synchronized boolean contains(SimulationEngine engine, BigInteger era_year, int month) {
+		return grids.containsKey( new Key( engine, era_year, month ) );
+	}
+	
+	/**
+	 * Forgets all months.
+	 */
+	public synchronized void invalidate() {
+		grids.clear();
+	}
+	
+	public synchronized int size() {
+		return grids.size();
+	}
+	public synchronized long getHits() {
+		return hits;
+	}
+	public synchronized long getMisses() {
+		return misses;
+	}
+}
@@ -0,0 +1,18 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import pl.felixspeagel.calcal.calendar.SpecialFeature;
+
+/**
+ * One month of a simulated year, laid out in weeks.
+ * @param month index of the month
+ * @param name name of the month
+ * @param feature the special feature of the month, NONE for a normal one
+ * @param weeks the days, as returned by {@link Simulation#getListOfDaysInTheMonth()}
+ */
+public record MonthInYear(
+		int month,
+		String name,
+		SpecialFeature feature,
+		DayInMonth[][] weeks
+) {
+}
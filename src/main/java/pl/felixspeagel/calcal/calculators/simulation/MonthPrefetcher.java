@@ -0,0 +1,85 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lays out the months around the current one in the background, so they're already
+ * in the {@link MonthGridCache} when the user goes to them.
+ * <p>
+ * After each move it asks for the next and previous few months, nearest first, and the same
+ * month in the year before and after. Only the engine and copies of the simulation are used,
+ * so the view can keep moving meanwhile. A request which isn't started before the next move
+ * is dropped, the months around the new position matter more.
+ */
+public final class MonthPrefetcher {
+	
+	private final MonthGridCache cache;
+	private final int months_around;
+	private final ExecutorService executor;
+	private final AtomicLong generation;
+	
+	/**
+	 * @param a_cache where the months go
+	 * @param months how many months to prepare in each direction
+	 */
+	public MonthPrefetcher(MonthGridCache a_cache, int months) {
+		this( a_cache, months, Executors.newFixedThreadPool( 2, task -> {
+			var thread = new Thread( task, "month-prefetcher" );
+			// it mustn't keep the application alive, nor slow the user interface down
+			thread.setDaemon( true );
+			thread.setPriority( Thread.MIN_PRIORITY );
+			return thread;
+		} ) );
+	}
+	
+	MonthPrefetcher(MonthGridCache a_cache, int months, ExecutorService an_executor) {
+		cache = a_cache;
+		months_around = months;
+		executor = an_executor;
+		generation = new AtomicLong();
+	}
+	
+	/**
+	 * Starts preparing the months around the current month of the simulation, forgetting the earlier requests.
+	 */
+	public void prefetchAround(Simulation simulation) {
+		if( executor.isShutdown() ) return;
+		long current = generation.incrementAndGet();
+		var engine = simulation.getEngine();
+		
+		var targets = new ArrayList<SimulationDate>( 2 * months_around + 2 );
+		var forward = simulation.copy();
+		var backward = simulation.copy();
+		for(int i=0; i<months_around; i++) {
+			forward.gotoNextMonth();
+			targets.add( new SimulationDate( forward.getEraYear(), forward.getMonth(), 1 ) );
+			backward.gotoPreviousMonth();
+			targets.add( new SimulationDate( backward.getEraYear(), backward.getMonth(), 1 ) );
+		}
+		var next_year = simulation.copy();
+		next_year.moveByYears( BigInteger.ONE );
+		targets.add( new SimulationDate( next_year.getEraYear(), next_year.getMonth(), 1 ) );
+		var previous_year = simulation.copy();
+		previous_year.moveByYears( BigInteger.ONE.negate() );
+		targets.add( new SimulationDate( previous_year.getEraYear(), previous_year.getMonth(), 1 ) );
+		
+		for(var target : targets) {
+			executor.execute( () -> {
+				if( generation.get() != current ) return; // the user has moved on
+				cache.prefetch( engine, target.era_year(), target.month() );
+			} );
+		}
+	}
+	
+	/**
+	 * Stops the background threads; nothing is prepared after it.
+	 * It must be called when the simulation is closed, or its threads stay alive.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
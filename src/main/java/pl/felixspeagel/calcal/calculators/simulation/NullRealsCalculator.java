@@ -47,4 +47,9 @@ public class NullRealsCalculator implements RealsCalculator {
 	public MixedFraction getYearShift() {
 		return null;
 	}
+	
+	@Override
+	public RealsCalculator copy() {
+		return this; //nothing to move
+	}
 }
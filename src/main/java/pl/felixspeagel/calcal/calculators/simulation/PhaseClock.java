@@ -0,0 +1,166 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+
+/**
+ * Tracks where a day falls within a repeating period (a lunation, a tropical year), split into equal parts.
+ * <p>
+ * With the period p/q and the shift s/t, the phase of a day d is the fraction
+ * ((d - s/t) / (p/q)) mod 1 = ((d*t - s) * q mod p*t) / (p*t),
+ * so it's kept as the integer residue (d*t - s) * q mod p*t. Going to the next day
+ * adds t*q and maybe subtracts p*t, and the part comes from comparing the residue
+ * with precomputed thresholds. It all runs on longs unless p*t is too big for them.
+ * <p>
+ * The residue repeats every p days, so a day count is first taken modulo p. That keeps
+ * the numbers as small as the period, however far from the epoch the day is.
+ */
+final class PhaseClock {
+	
+	private final int parts;
+	
+	//long path, used when big_modulus is null
+	private final long period;
+	private final long modulus;
+	private final long step;
+	private final long offset;
+	private final long[] thresholds;
+	private long residue;
+	
+	private final BigInteger big_period;
+	private final BigInteger big_modulus;
+	private final BigInteger big_step;
+	private final BigInteger big_offset;
+	private final BigInteger[] big_thresholds;
+	private BigInteger big_residue;
+	
+	private int part;
+	
+	/**
+	 * @param period length of the period in days, not zero
+	 * @param shift day on which the period begins
+	 * @param parts into how many equal parts the period is split
+	 */
+	PhaseClock(MixedFraction period, MixedFraction shift, int parts) {
+		if( period.isZero() ) {
+			throw new ArithmeticException("Period can't be zero.");
+		}
+		this.parts = parts;
+		var p = period.getTrueNumerator().abs();
+		var q = period.getDenominator();
+		var s = shift.getTrueNumerator();
+		var t = shift.getDenominator();
+		
+		var full_modulus = p.multiply( t );
+		var full_step = t.multiply( q ).mod( full_modulus );
+		var full_offset = s.multiply( q ).mod( full_modulus );
+		
+		// threshold k is the smallest residue in part k: ceil(k * modulus / parts)
+		var full_thresholds = new BigInteger[parts];
+		var big_parts = BigInteger.valueOf( parts );
+		for(int k=0; k<parts; k++) {
+			var scaled = full_modulus.multiply( BigInteger.valueOf( k ) );
+			full_thresholds[k] = scaled.add( big_parts ).subtract( BigInteger.ONE ).divide( big_parts );
+		}
+		
+		// room for modulus * parts and for residue + step
+		if( full_modulus.bitLength() < 58 ) {
+			this.period = p.longValue();
+			modulus = full_modulus.longValue();
+			step = full_step.longValue();
+			offset = full_offset.longValue();
+			thresholds = new long[parts];
+			for(int k=0; k<parts; k++) {
+				thresholds[k] = full_thresholds[k].longValue();
+			}
+			big_period = null;
+			big_modulus = null;
+			big_step = null;
+			big_offset = null;
+			big_thresholds = null;
+		} else {
+			this.period = 0;
+			modulus = 0;
+			step = 0;
+			offset = 0;
+			thresholds = null;
+			big_period = p;
+			big_modulus = full_modulus;
+			big_step = full_step;
+			big_offset = full_offset;
+			big_thresholds = full_thresholds;
+		}
+	}
+	
+	/**
+	 * Makes a clock on the same day. Only the position is copied, the thresholds are shared.
+	 */
+	PhaseClock(PhaseClock other) {
+		parts = other.parts;
+		period = other.period;
+		modulus = other.modulus;
+		step = other.step;
+		offset = other.offset;
+		thresholds = other.thresholds;
+		residue = other.residue;
+		big_period = other.big_period;
+		big_modulus = other.big_modulus;
+		big_step = other.big_step;
+		big_offset = other.big_offset;
+		big_thresholds = other.big_thresholds;
+		big_residue = other.big_residue;
+		part = other.part;
+	}
+	
+	/**
+	 * Puts the clock on the given day.
+	 */
+	void set(BigInteger days) {
+		if( big_modulus == null ) {
+			long days_in_period = days.bitLength() < 64
+					? Math.floorMod( days.longValue(), period )
+					: days.mod( BigInteger.valueOf( period ) ).longValue();
+			try {
+				residue = Math.floorMod( Math.multiplyExact( days_in_period, step ) - offset, modulus );
+			} catch( ArithmeticException overflow ) {
+				residue = BigInteger.valueOf( days_in_period ).multiply( BigInteger.valueOf( step ) )
+						.subtract( BigInteger.valueOf( offset ) ).mod( BigInteger.valueOf( modulus ) ).longValue();
+			}
+			part = 0;
+			while( part + 1 < parts && residue >= thresholds[part + 1] ) part++;
+		} else {
+			big_residue = days.mod( big_period ).multiply( big_step ).subtract( big_offset ).mod( big_modulus );
+			part = 0;
+			while( part + 1 < parts && big_residue.compareTo( big_thresholds[part + 1] ) >= 0 ) part++;
+		}
+	}
+	
+	/**
+	 * Moves the clock one day forward.
+	 */
+	void nextDay() {
+		if( big_modulus == null ) {
+			residue += step;
+			if( residue >= modulus ) {
+				residue -= modulus;
+				part = 0;
+			}
+			while( part + 1 < parts && residue >= thresholds[part + 1] ) part++;
+		} else {
+			big_residue = big_residue.add( big_step );
+			if( big_residue.compareTo( big_modulus ) >= 0 ) {
+				big_residue = big_residue.subtract( big_modulus );
+				part = 0;
+			}
+			while( part + 1 < parts && big_residue.compareTo( big_thresholds[part + 1] ) >= 0 ) part++;
+		}
+	}
+	
+	/**
+	 * @return the part of the period the current day is in, from 0
+	 */
+	int part() {
+		return part;
+	}
+}
@@ -0,0 +1,190 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import pl.felixspeagel.calcal.math.Functions;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Finds the days on which a moon phase or a season begins, without walking through the days between them.
+ * <p>
+ * A day is an event of the kind k when it's in the k-th part of the period and the day before isn't,
+ * which is what {@link TrueRealsCalculator} reports as a border. Like in {@link PhaseClock}, with the
+ * period p/q and the shift s/t the day d is at the integer position (d*t - s) * q, and the k-th part
+ * of a period begins at the position m*p*t + ⌈k*p*t/parts⌉. The first day at or past that is the only
+ * candidate for the event in the m-th period, so when the parts are longer than a day an event is found
+ * with one division. Shorter parts are skipped in some periods, and the search goes on period by period:
+ * at worst through t*q / gcd(t*q, p*t) of them, which are as many as the denominators of the period
+ * and the shift allow. A kind which never begins is known from the start and costs nothing.
+ * @param <T> the kind of events: {@link MoonPhase} or {@link Season}
+ */
+public final class PhaseEventFinder<T extends Enum<T>> {
+	
+	private final BigInteger day_step; // t*q, how far the position moves in a day
+	private final BigInteger position_shift; // s*q
+	private final BigInteger modulus; // p*t, the whole period
+	private final BigInteger[] thresholds; // where each part begins, the last entry is the modulus
+	private final BigInteger repeat; // periods after which the days of the events repeat
+	private final boolean[] never_begins; // by part
+	
+	public static PhaseEventFinder<MoonPhase> ofMoon(MixedFraction month_length, MixedFraction month_shift) {
+		return new PhaseEventFinder<>( month_length, month_shift, MoonPhase.values().length );
+	}
+	public static PhaseEventFinder<Season> ofSeasons(MixedFraction year_length, MixedFraction year_shift) {
+		return new PhaseEventFinder<>( year_length, year_shift, Season.values().length );
+	}
+	
+	private PhaseEventFinder(MixedFraction period, MixedFraction shift, int parts) {
+		if( period.isZero() ) {
+			throw new ArithmeticException("Period can't be zero.");
+		}
+		var p = period.getTrueNumerator().abs();
+		var q = period.getDenominator();
+		var s = shift.getTrueNumerator();
+		var t = shift.getDenominator();
+		
+		day_step = t.multiply( q );
+		position_shift = s.multiply( q );
+		modulus = p.multiply( t );
+		
+		thresholds = new BigInteger[parts + 1];
+		var big_parts = BigInteger.valueOf( parts );
+		for(int k=0; k<=parts; k++) {
+			var scaled = modulus.multiply( BigInteger.valueOf( k ) );
+			thresholds[k] = scaled.add( big_parts ).subtract( BigInteger.ONE ).divide( big_parts );
+		}
+		// after day_step / gcd periods the events move by a whole number of days
+		var step_gcd = Functions.gcd( day_step, modulus );
+		repeat = day_step.divide( step_gcd );
+		
+		// the days reach just the positions of one remainder mod gcd, and all of them;
+		// a part begins on some day if it holds some of them, but not all
+		var reached = position_shift.negate().mod( step_gcd );
+		var all_reached = modulus.divide( step_gcd );
+		never_begins = new boolean[parts];
+		for(int k=0; k<parts; k++) {
+			var in_part = reachedBefore( thresholds[k + 1], reached, step_gcd ).subtract( reachedBefore( thresholds[k], reached, step_gcd ) );
+			never_begins[k] = in_part.signum() == 0 || in_part.equals( all_reached );
+		}
+	}
+	
+	/**
+	 * Counts the positions in 0..limit-1 with the given remainder.
+	 */
+	private static BigInteger reachedBefore(BigInteger limit, BigInteger remainder, BigInteger divisor) {
+		var shifted = limit.subtract( remainder ).add( divisor ).subtract( BigInteger.ONE );
+		// floor division, shifted is never below 0
+		return shifted.divide( divisor );
+	}
+	
+	private BigInteger positionOf(BigInteger day) {
+		return day.multiply( day_step ).subtract( position_shift );
+	}
+	
+	/**
+	 * Rounds the position down to whole periods.
+	 */
+	private BigInteger periodOf(BigInteger position) {
+		return position.subtract( position.mod( modulus ) ).divide( modulus );
+	}
+	
+	private int partOf(BigInteger day) {
+		var residue = positionOf( day ).mod( modulus );
+		int part = 0;
+		while( residue.compareTo( thresholds[part + 1] ) >= 0 ) part++;
+		return part;
+	}
+	
+	/**
+	 * The first day at or past the beginning of the part in the given period.
+	 */
+	private BigInteger candidateDay(int part, BigInteger period_number) {
+		var begin = period_number.multiply( modulus ).add( thresholds[part] ).add( position_shift );
+		// ceiling division, the step is positive
+		var division = begin.divideAndRemainder( day_step );
+		return division[1].signum() > 0 ? division[0].add( BigInteger.ONE ) : division[0];
+	}
+	
+	private boolean isEvent(int part, BigInteger day) {
+		return partOf( day ) == part && partOf( day.subtract( BigInteger.ONE ) ) != part;
+	}
+	
+	/**
+	 * Finds the first event of the kind on the day or after it.
+	 * <p>
+	 * When a part is shorter than a day, some periods have no event of its kind; the search
+	 * then goes on through the periods until the pattern of the events repeats.
+	 * @return the day number of the event, null if the kind never begins on any day
+	 */
+	public BigInteger nextEvent(T kind, BigInteger day) {
+		int part = kind.ordinal();
+		if( never_begins[part] ) {
+			return null;
+		}
+		// the first period whose part begins after the day before
+		var period_number = periodOf( positionOf( day.subtract( BigInteger.ONE ) ).subtract( thresholds[part] ) ).add( BigInteger.ONE );
+		for(var tried = BigInteger.ZERO; tried.compareTo( repeat ) < 0; tried = tried.add( BigInteger.ONE )) {
+			var candidate = candidateDay( part, period_number );
+			if( isEvent( part, candidate ) ) {
+				return candidate;
+			}
+			period_number = period_number.add( BigInteger.ONE );
+		}
+		return null;
+	}
+	
+	/**
+	 * Finds the last event of the kind on the day or before it.
+	 * @return the day number of the event, null if the kind never begins on any day
+	 */
+	public BigInteger previousEvent(T kind, BigInteger day) {
+		int part = kind.ordinal();
+		if( never_begins[part] ) {
+			return null;
+		}
+		// the last period whose part begins on the day or before it
+		var period_number = periodOf( positionOf( day ).subtract( thresholds[part] ) );
+		for(var tried = BigInteger.ZERO; tried.compareTo( repeat ) < 0; tried = tried.add( BigInteger.ONE )) {
+			var candidate = candidateDay( part, period_number );
+			if( isEvent( part, candidate ) ) {
+				return candidate;
+			}
+			period_number = period_number.subtract( BigInteger.ONE );
+		}
+		return null;
+	}
+	
+	/**
+	 * Lists the events of the kind from one day up to another. They are found one by one
+	 * while iterating, so the cost depends on how many there are and not on how many days pass.
+	 * @param from the first day, included
+	 * @param to the last day, not included
+	 */
+	public Iterable<BigInteger> events(T kind, BigInteger from, BigInteger to) {
+		return () -> new Iterator<>() {
+			private BigInteger next = findFrom( from );
+			
+			private BigInteger findFrom(BigInteger day) {
+				var event = nextEvent( kind, day );
+				return event != null && event.compareTo( to ) < 0 ? event : null;
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+			
+			@Override
+			public BigInteger next() {
+				if( next == null ) {
+					throw new NoSuchElementException();
+				}
+				var result = next;
+				next = findFrom( result.add( BigInteger.ONE ) );
+				return result;
+			}
+		};
+	}
+}
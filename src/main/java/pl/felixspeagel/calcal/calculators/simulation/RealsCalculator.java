@@ -15,4 +15,9 @@ public interface RealsCalculator {
 	
 	MixedFraction getYearLength();
 	MixedFraction getYearShift();
+	
+	/**
+	 * @return a calculator with the same settings, which can be moved on its own
+	 */
+	RealsCalculator copy();
 }
@@ -4,44 +4,316 @@ import pl.felixspeagel.calcal.calculators.IntercalationType;
 import pl.felixspeagel.calcal.calculators.Rule;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class RulesLeapCalculator implements LeapCalculator {
 	
-	private final Rule[] the_rules;
-	private BigInteger current_year;
+	/**
+	 * Rule sets whose divisors have an lcm up to this many years are evaluated from a bitmap.
+	 */
+	private static final int BITMAP_LIMIT = 1 << 20;
+	/**
+	 * Inclusion–exclusion grows up to 2^rules terms, so it stops at this many.
+	 */
+	private static final int TERM_LIMIT = 4096;
+	
+	//the rules from the last to the first, because the last matching one decides
+	private final BigInteger[] divisors;
+	private final long[] divisors_long; // Long.MAX_VALUE for divisors which don't fit
+	private final boolean[] leap;
+	
+	//leap years of one period, indexed by year mod period; null if the period is too long
+	private final long[] leap_bits;
+	private final int period;
+	//leap years in the words of leap_bits before the index, the last one is the count in a period
+	private final long[] leaps_before_word;
+	
+	private boolean current_is_leap;
+	
+	/**
+	 * The number of leap years in 1..n is the sum of coefficient * floor(n / divisor) over these terms.
+	 * Null when the bitmap counts them, or when there would be too many terms.
+	 */
+	private final BigInteger[] term_divisors;
+	private final long[] term_divisors_long; // Long.MAX_VALUE for divisors which don't fit
+	private final long[] term_coefficients;
 	
 	public RulesLeapCalculator(Rule[] rules) {
-		the_rules = rules;
-		current_year = BigInteger.ONE;
+		rules = usableRules( rules );
+		divisors = new BigInteger[rules.length];
+		divisors_long = new long[rules.length];
+		leap = new boolean[rules.length];
+		var common_period = BigInteger.ONE;
+		for(int i=0; i<rules.length; i++) {
+			var rule = rules[rules.length - 1 - i];
+			divisors[i] = rule.each_year();
+			divisors_long[i] = rule.each_year().bitLength() < 64 ? rule.each_year().longValue() : Long.MAX_VALUE;
+			leap[i] = rule.is_leap() == IntercalationType.LEAP;
+			common_period = lcm( common_period, rule.each_year() );
+		}
+		
+		if( common_period.compareTo( BigInteger.valueOf( BITMAP_LIMIT ) ) <= 0 ) {
+			period = common_period.intValue();
+			leap_bits = new long[( period + 63 ) / 64];
+			for(int year=0; year<period; year++) {
+				if( isLeapYear( year ) ) {
+					leap_bits[year >> 6] |= 1L << year;
+				}
+			}
+			leaps_before_word = new long[leap_bits.length + 1];
+			for(int word=0; word<leap_bits.length; word++) {
+				leaps_before_word[word + 1] = leaps_before_word[word] + Long.bitCount( leap_bits[word] );
+			}
+		} else {
+			period = 0;
+			leap_bits = null;
+			leaps_before_word = null;
+		}
+		setEraYear( BigInteger.ONE );
+		
+		var terms = leap_bits == null ? compileTerms( rules ) : null;
+		if( terms == null ) {
+			term_divisors = null;
+			term_divisors_long = null;
+			term_coefficients = null;
+			return;
+		}
+		term_divisors = new BigInteger[terms.size()];
+		term_divisors_long = new long[terms.size()];
+		term_coefficients = new long[terms.size()];
+		int index = 0;
+		for(var term : terms.entrySet()) {
+			term_divisors[index] = term.getKey();
+			term_divisors_long[index] = term.getKey().bitLength() < 64 ? term.getKey().longValue() : Long.MAX_VALUE;
+			term_coefficients[index] = term.getValue();
+			index++;
+		}
 	}
 	
+	/**
+	 * Drops the rules which can't match any year but 0, and makes the divisors positive.
+	 */
+	private static Rule[] usableRules(Rule[] rules) {
+		var result = new ArrayList<Rule>();
+		for(var rule : rules) {
+			if( rule.each_year().signum() != 0 ) {
+				result.add( new Rule( rule.each_year().abs(), rule.is_leap() ) );
+			}
+		}
+		return result.toArray( new Rule[0] );
+	}
+	
+	/**
+	 * A year is leap when the last rule whose divisor divides it is a leap rule.
+	 * So a leap rule counts the multiples of its divisor which no later rule divides;
+	 * by inclusion–exclusion that is a sum of ±floor(n / lcm) over the subsets of the later rules.
+	 * Terms with the same lcm are merged, and those which cancel out are dropped.
+	 * @return null if there are more than {@link #TERM_LIMIT} terms
+	 */
+	private static TreeMap<BigInteger, Long> compileTerms(Rule[] rules) {
+		var result = new TreeMap<BigInteger, Long>();
+		for(int i=0; i<rules.length; i++) {
+			if( rules[i].is_leap() != IntercalationType.LEAP ) continue;
+			
+			var terms = new TreeMap<BigInteger, Long>();
+			terms.put( rules[i].each_year(), 1L );
+			for(int j=i+1; j<rules.length; j++) {
+				// multiples of the term's divisor which the later rule doesn't divide
+				var divisor = rules[j].each_year();
+				var excluded = new TreeMap<BigInteger, Long>();
+				for(var term : terms.entrySet()) {
+					excluded.merge( lcm( term.getKey(), divisor ), -term.getValue(), Long::sum );
+				}
+				mergeInto( terms, excluded );
+				if( terms.size() > TERM_LIMIT ) return null;
+			}
+			mergeInto( result, terms );
+			if( result.size() > TERM_LIMIT ) return null;
+		}
+		return result;
+	}
+	
+	private static void mergeInto(TreeMap<BigInteger, Long> target, Map<BigInteger, Long> terms) {
+		for(var term : terms.entrySet()) {
+			var sum = target.merge( term.getKey(), term.getValue(), Long::sum );
+			if( sum == 0 ) {
+				target.remove( term.getKey() );
+			}
+		}
+	}
+	
+	private static BigInteger lcm(BigInteger a, BigInteger b) {
+		return a.divide( a.gcd( b ) ).multiply( b );
+	}
 	
 	@Override
 	public void setEraYear(BigInteger year) {
-		current_year = year;
+		current_is_leap = isLeapYear( year );
 	}
 	
+	/**
+	 * Counts the leap years from 1 to the year, or from the year to 0 if it isn't positive.
+	 */
 	@Override
 	public BigInteger leapYearsUntil(BigInteger year) {
-		var leap_count = BigInteger.ZERO;
-		for(var rule : the_rules) {
-			if( rule.is_leap() == IntercalationType.LEAP ) {
-				leap_count = leap_count.add( year.abs().divide( rule.each_year() ) );
-			} else if( rule.is_leap() == IntercalationType.NORMAL ) {
-				leap_count = leap_count.subtract( year.abs().divide( rule.each_year() ) );
+		// a year and its negation are divisible by the same numbers, and 0 by all of them
+		var count = leapYearsIn( year.abs() );
+		if( year.signum() <= 0 && isLeapYear( 0L ) ) {
+			count = count.add( BigInteger.ONE );
+		}
+		return count;
+	}
+	
+	/**
+	 * Leap years in 1..n.
+	 */
+	private BigInteger leapYearsIn(BigInteger n) {
+		if( leap_bits != null ) {
+			return leapYearsFromBitmap( n );
+		}
+		if( term_divisors == null ) {
+			return leapYearsByRules( n );
+		}
+		if( n.bitLength() < 63 ) {
+			long small_n = n.longValue();
+			try {
+				long count = 0;
+				for(int i=0; i<term_divisors_long.length; i++) {
+					count = Math.addExact( count, Math.multiplyExact( term_coefficients[i], small_n / term_divisors_long[i] ) );
+				}
+				return BigInteger.valueOf( count );
+			} catch( ArithmeticException overflow ) {
+				//go on with BigIntegers
 			}
 		}
-		return leap_count;
+		var count = BigInteger.ZERO;
+		for(int i=0; i<term_divisors.length; i++) {
+			count = count.add( n.divide( term_divisors[i] ).multiply( BigInteger.valueOf( term_coefficients[i] ) ) );
+		}
+		return count;
+	}
+	
+	/**
+	 * Leap years in 1..n as whole periods and a part of one, counted from the bitmap.
+	 */
+	private BigInteger leapYearsFromBitmap(BigInteger n) {
+		var in_period = leaps_before_word[leap_bits.length];
+		if( n.bitLength() < 63 ) {
+			long small_n = n.longValue();
+			try {
+				return BigInteger.valueOf( Math.addExact(
+						Math.multiplyExact( small_n / period, in_period ),
+						leapYearsUpTo( (int) ( small_n % period ) )
+				) );
+			} catch( ArithmeticException overflow ) {
+				//go on with BigIntegers
+			}
+		}
+		var periods = n.divideAndRemainder( BigInteger.valueOf( period ) );
+		return periods[0].multiply( BigInteger.valueOf( in_period ) )
+				.add( BigInteger.valueOf( leapYearsUpTo( periods[1].intValue() ) ) );
+	}
+	
+	/**
+	 * Leap years in 1..year for a year inside the period.
+	 */
+	private long leapYearsUpTo(int year) {
+		int word = year >> 6;
+		// bits 0..year of the word, without the year 0
+		long count = leaps_before_word[word] + Long.bitCount( leap_bits[word] & ( -1L >>> ( 63 - ( year & 63 ) ) ) );
+		return ( leap_bits[0] & 1 ) != 0 ? count - 1 : count;
+	}
+	
+	/**
+	 * Leap years in 1..n when the terms would be too many: the same inclusion–exclusion,
+	 * but a subset is dropped with all its supersets as soon as its lcm is past n,
+	 * or a rule of the subset divides that lcm, and the subsets reached twice are counted once.
+	 * The steps still grow with n.
+	 */
+	private BigInteger leapYearsByRules(BigInteger n) {
+		var counted = new ArrayList<HashMap<BigInteger, BigInteger>>();
+		for(int i=0; i<divisors.length; i++) {
+			counted.add( new HashMap<>() );
+		}
+		var count = BigInteger.ZERO;
+		for(int i=0; i<divisors.length; i++) {
+			if( leap[i] ) {
+				count = count.add( multiplesNotDivided( n, divisors[i], i, counted ) );
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Multiples of the divisor in 1..n which none of the first rules divides.
+	 * The rules are in reverse, so those are the ones after it.
+	 */
+	private BigInteger multiplesNotDivided(BigInteger n, BigInteger divisor, int rules,
+		List<HashMap<BigInteger, BigInteger>> counted
+	) {
+		if( divisor.compareTo( n ) > 0 ) {
+			return BigInteger.ZERO;
+		}
+		for(int j=0; j<rules; j++) {
+			// then every multiple is divided, and the lcm below would stay the same
+			if( divisor.remainder( divisors[j] ).signum() == 0 ) {
+				return BigInteger.ZERO;
+			}
+		}
+		var known = counted.get( rules ).get( divisor );
+		if( known != null ) {
+			return known;
+		}
+		var count = n.divide( divisor );
+		for(int j=0; j<rules; j++) {
+			// those divided by the rule j, but not by any before it
+			count = count.subtract( multiplesNotDivided( n, lcm( divisor, divisors[j] ), j, counted ) );
+		}
+		counted.get( rules ).put( divisor, count );
+		return count;
 	}
 	
 	@Override
 	public boolean isLeapYear() {
-		var is_leap = false;
-		for(var rule : the_rules) {
-			if( current_year.remainder( rule.each_year() ).equals( BigInteger.ZERO ) ) {
-				is_leap = rule.is_leap() == IntercalationType.LEAP;
+		return current_is_leap;
+	}
+	
+	@Override
+	public boolean isLeapYear(BigInteger year) {
+		if( year.bitLength() < 63 ) {
+			long small_year = year.longValue();
+			if( leap_bits != null ) {
+				int in_period = (int) Math.floorMod( small_year, (long) period );
+				return ( leap_bits[in_period >> 6] & ( 1L << in_period ) ) != 0;
+			}
+			return isLeapYear( small_year );
+		}
+		if( leap_bits != null ) {
+			int in_period = year.mod( BigInteger.valueOf( period ) ).intValue();
+			return ( leap_bits[in_period >> 6] & ( 1L << in_period ) ) != 0;
+		}
+		for(int i=0; i<divisors.length; i++) {
+			if( year.remainder( divisors[i] ).signum() == 0 ) {
+				return leap[i];
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Goes through the rules for a year which fits into a long, without the bitmap.
+	 */
+	private boolean isLeapYear(long year) {
+		for(int i=0; i<divisors_long.length; i++) {
+			// a divisor which doesn't fit only divides 0
+			if( year % divisors_long[i] == 0 ) {
+				return leap[i];
 			}
 		}
-		return is_leap;
+		return false;
 	}
 }
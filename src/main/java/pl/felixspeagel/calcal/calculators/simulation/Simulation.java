@@ -1,274 +1,203 @@
 package pl.felixspeagel.calcal.calculators.simulation;
 
-import pl.felixspeagel.calcal.calculators.Rule;
 import pl.felixspeagel.calcal.calendar.Calendar;
+import pl.felixspeagel.calcal.calendar.CompiledCalendar;
 import pl.felixspeagel.calcal.calendar.SpecialFeature;
 import pl.felixspeagel.calcal.math.MixedFraction;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.LinkedList;
 
+/**
+ * The current month of a simulated calendar, moved around by the views.
+ * <p>
+ * It only keeps the year and the month; everything is computed by its {@link SimulationEngine},
+ * which can be shared by any number of simulations and threads.
+ */
 public class Simulation {
 	
-	private final Calendar the_calendar;
-	private final int week_shift;
-	private final BigInteger epoch;
-	
-	private final BigInteger normal_days_in_year;
-	private final BigInteger leap_days_in_year;
-	private final LeapCalculator leap_calculator;
+	private final SimulationEngine engine;
 	
 	private int month_number;
-	private BigInteger year_number;
-	
-	private final RealsCalculator reals;
+	private BigInteger era_year;
+	private boolean is_leap;
 	
+	/**
+	 * @return a new simulation on the same engine and at the same month
+	 */
 	public Simulation copy() {
-		return new Simulation(
-				the_calendar, week_shift, epoch,
-				reals.getMonthLength(), reals.getYearLength(),
-				reals.getMonthShift(), reals.getYearShift()
-		);
+		var result = new Simulation( engine );
+		result.era_year = era_year;
+		result.is_leap = is_leap;
+		result.month_number = month_number;
+		return result;
 	}
 	
 	public Simulation(Calendar calendar, int week_day_shift, BigInteger era_begin,
 		MixedFraction real_month_length, MixedFraction real_year_length,
 	    MixedFraction month_shift, MixedFraction year_shift
 	) {
-		the_calendar = calendar;
-		week_shift = week_day_shift;
-		epoch = era_begin;
-		if(
-				real_month_length != null &&
-				real_year_length != null &&
-				month_shift != null &&
-				year_shift != null
-		) {
-			reals = new TrueRealsCalculator(real_month_length, real_year_length,
-					month_shift, year_shift
-			);
-		} else {
-			reals = new NullRealsCalculator();
-		}
-		
-		BigInteger normal_days = BigInteger.ZERO;
-		BigInteger leap_days = BigInteger.ZERO;
-		
-		var uses_leap_month = the_calendar.getYear().feature == SpecialFeature.LEAP;
-		for(int monthID=0; monthID<the_calendar.getYear().getMonthCount(); monthID++) {
-			var month = the_calendar.getYear().getMonth( monthID );
-			if( uses_leap_month && the_calendar.getYear().isMonthFeature( monthID ) ) {
-				leap_days = leap_days.add( BigInteger.valueOf( month.normal_days + month.leap_days ) );
-			} else {
-				normal_days = normal_days.add( BigInteger.valueOf( month.normal_days ) );
-			}
-			leap_days = leap_days.add( BigInteger.valueOf( month.leap_days ) );
-		}
-		normal_days_in_year = normal_days;
-		leap_days_in_year = leap_days.add(normal_days);
-		
-		if( the_calendar.hasCycle() ) {
-			leap_calculator = new CycleLeapCalculator( the_calendar.getCycle() );
-		} else if( the_calendar.hasLeapRules() ) {
-			var rules_array = new ArrayList<Rule>();
-			var rules = the_calendar.getRules();
-			for(int i=0; i<rules.length; i++) {
-				if( the_calendar.isRuleTurnedOn( i ) ) {
-					rules_array.add( rules[i] );
-				}
-			}
-			leap_calculator = new RulesLeapCalculator(rules_array.toArray(new Rule[0]));
-		} else {
-			leap_calculator = new CycleLeapCalculator(null); //shouldn't reach
-		}
-		
-		year_number = BigInteger.ONE;
-		leap_calculator.setEraYear( year_number );
+		this( new SimulationEngine( calendar, week_day_shift, era_begin,
+				real_month_length, real_year_length,
+				month_shift, year_shift
+		) );
+	}
+	
+	public Simulation(CompiledCalendar calendar, int week_day_shift, BigInteger era_begin,
+		MixedFraction real_month_length, MixedFraction real_year_length,
+	    MixedFraction month_shift, MixedFraction year_shift
+	) {
+		this( new SimulationEngine( calendar, week_day_shift, era_begin,
+				real_month_length, real_year_length,
+				month_shift, year_shift
+		) );
+	}
+	
+	/**
+	 * Starts at the first month of the year 1 after the epoch.
+	 */
+	public Simulation(SimulationEngine an_engine) {
+		engine = an_engine;
+		setEraYear( engine.getEpoch().add( BigInteger.ONE ) );
 		gotoFirstMonth();
 	}
 	
+	public SimulationEngine getEngine() {
+		return engine;
+	}
+	
 	public int getWeekLength() {
-		return the_calendar.getWeek().length;
+		return engine.getWeekLength();
 	}
 	
-	public void setEraYear(BigInteger era_year) {
-		year_number = era_year.subtract( epoch );
-		leap_calculator.setEraYear( era_year );
+	public void setEraYear(BigInteger year) {
+		era_year = year;
+		is_leap = engine.isLeapYear( era_year );
 	}
 	public BigInteger getEraYear() {
-		return year_number.add( epoch );
+		return era_year;
 	}
 	public void gotoNextYear() {
-		year_number = year_number.add( BigInteger.ONE );
-		leap_calculator.setEraYear( year_number );
+		setEraYear( era_year.add( BigInteger.ONE ) );
 	}
 	public void gotoPreviousYear() {
-		year_number = year_number.subtract( BigInteger.ONE );
-		leap_calculator.setEraYear( year_number );
+		setEraYear( era_year.subtract( BigInteger.ONE ) );
 	}
 	
-	private boolean isThisMonthLeap(int month) {
-		if( the_calendar.getYear().feature != SpecialFeature.LEAP ) {
-			return false; //there are no leap months
-		} else {
-			return the_calendar.getYear().isMonthFeature( month );
-		}
+	private boolean isMissing(int month) {
+		return engine.getCalendar().isLeapMonth( month ) && ! is_leap;
 	}
 	
 	public void setMonth(int month) {
+		var last_month = engine.getCalendar().getLastMonthIndex();
 		if( month < 0 )
 			month = 0;
-		if( month >= the_calendar.getYear().getLastMonthIndex() )
-			month = the_calendar.getYear().getLastMonthIndex();
+		if( month >= last_month )
+			month = last_month;
 		month_number = month;
 		
-		if( isThisMonthLeap(month_number) && ! leap_calculator.isLeapYear() ) {
+		if( isMissing(month_number) ) {
 			gotoPreviousMonth();
 		}
 	}
 	public void gotoFirstMonth() {
 		month_number = 0;
-		if( isThisMonthLeap(month_number) && ! leap_calculator.isLeapYear() ) {
+		if( isMissing(month_number) ) {
 			gotoNextMonth();
 		}
 	}
 	public void gotoLastMonth() {
-		month_number = the_calendar.getYear().getLastMonthIndex();
-		if( isThisMonthLeap(month_number) && ! leap_calculator.isLeapYear() ) {
+		month_number = engine.getCalendar().getLastMonthIndex();
+		if( isMissing(month_number) ) {
 			gotoPreviousMonth();
 		}
 	}
 	
 	public void gotoNextMonth() {
-		month_number++;
-		if( month_number > the_calendar.getYear().getLastMonthIndex() ) {
-			month_number -= the_calendar.getYear().getLastMonthIndex();
-			month_number -= 2;
-			gotoNextYear();
-			gotoNextMonth();
-		}
-		if( isThisMonthLeap(month_number) && ! leap_calculator.isLeapYear() ) {
-			gotoNextMonth();
-		}
+		do {
+			month_number++;
+			if( month_number > engine.getCalendar().getLastMonthIndex() ) {
+				month_number = 0;
+				gotoNextYear();
+			}
+		} while( isMissing(month_number) );
 	}
 	public void gotoPreviousMonth() {
-		month_number--;
-		if( month_number < 0 )  {
-			month_number += the_calendar.getYear().getLastMonthIndex();
-			month_number += 2;
-			gotoPreviousYear();
-			gotoPreviousMonth();
-		}
-		if( isThisMonthLeap(month_number) && ! leap_calculator.isLeapYear() ) {
-			gotoPreviousMonth();
+		do {
+			month_number--;
+			if( month_number < 0 ) {
+				month_number = engine.getCalendar().getLastMonthIndex();
+				gotoPreviousYear();
+			}
+		} while( isMissing(month_number) );
+	}
+	
+	/**
+	 * Moves by whole years, keeping the month. A leap month becomes the month before it
+	 * if the year reached isn't leap, or the month after it if it's the first month.
+	 */
+	public void moveByYears(BigInteger years) {
+		setEraYear( era_year.add( years ) );
+		if( isMissing(month_number) ) {
+			// stay in the year reached
+			month_number += month_number > 0 ? -1 : 1;
 		}
 	}
+	
+	/**
+	 * Moves forward, or back if negative, by the given number of months straight to the month reached.
+	 */
+	public void moveByMonths(BigInteger months) {
+		gotoMonthSinceEpoch( getMonthsSinceEpoch().add( months ) );
+	}
+	
+	/**
+	 * @see SimulationEngine#getMonthsSinceEpoch(BigInteger, int)
+	 */
+	public BigInteger getMonthsSinceEpoch() {
+		return engine.getMonthsSinceEpoch( era_year, month_number );
+	}
+	
+	/**
+	 * Goes to the month with the given number, as counted by {@link #getMonthsSinceEpoch()}.
+	 */
+	public void gotoMonthSinceEpoch(BigInteger months) {
+		gotoDate( engine.fromMonthsSinceEpoch( months ) );
+	}
+	
+	/**
+	 * Goes to the month with the given day, see {@link SimulationEngine#toDayNumber(BigInteger, int, int)}.
+	 */
+	public void gotoMonthOfDay(BigInteger day_number) {
+		gotoDate( engine.fromDayNumber( day_number ) );
+	}
+	
+	private void gotoDate(SimulationDate date) {
+		setEraYear( date.era_year() );
+		month_number = date.month();
+	}
+	
+	/**
+	 * @return index of the current month
+	 */
+	public int getMonth() {
+		return month_number;
+	}
 	public String getMonthName() {
-		return the_calendar.getYear().getMonth( month_number ).name;
+		return engine.getMonthName( month_number );
 	}
 	public SpecialFeature getMonthFeature() {
-		if( the_calendar.getYear().isMonthFeature( month_number ) ) {
-			return the_calendar.getYear().feature;
-		} else {
-			return SpecialFeature.NONE;
-		}
+		return engine.getMonthFeature( month_number );
 	}
 	
 	public DayInMonth[][] getListOfDaysInTheMonth() {
-		var week = the_calendar.getWeek();
-		var month = the_calendar.getYear().getMonth( month_number );
-		int day_in_week;
-		
-		var days_so_far = calculateDaysSoFar();
-		reals.setDaysSoFar( days_so_far );
-		
-		if( week.starts_with_month ) {
-			//easy - month always start with the week beginning
-			day_in_week = 0;
-		} else {
-			//tough
-			var days_so_far_shifted = days_so_far.add( BigInteger.valueOf( week_shift ) );
-			//finally calculate the weekday
-			day_in_week = days_so_far_shifted.remainder( BigInteger.valueOf( week.length ) ).intValue();
-			if( day_in_week < 0 )
-				day_in_week += week.length;
-		}
-		
-		var days_in_month = month.normal_days;
-		if( leap_calculator.isLeapYear() ) {
-			days_in_month += month.leap_days;
-		}
-		
-		var weeks_in_month = new LinkedList<DayInMonth[]>();
-		var current_week = new DayInMonth[week.length];
-		for(var day=1; day<days_in_month+1; day++) {
-			
-			current_week[day_in_week] = new DayInMonth( day, reals.getBorderMoon(), reals.getBorderSeason() );
-			day_in_week++;
-			if( day_in_week == week.length ) {
-				weeks_in_month.add( current_week );
-				current_week = new DayInMonth[week.length];
-				day_in_week = 0;
-			}
-			
-			reals.moveToNextDay();
-		}
-		
-		if( day_in_week > 0 ) {
-			weeks_in_month.add( current_week );
-		}
-		return weeks_in_month.toArray(new DayInMonth[0][]);
+		return engine.getListOfDaysInTheMonth( era_year, month_number );
 	}
 	
-	private BigInteger calculateDaysSoFar() {
-		var year = year_number;
-		var zeroOrBellow = year.compareTo( BigInteger.ZERO ) <= 0;
-		
-		var leap_years_count = leap_calculator.leapYearsUntil( year );
-		BigInteger normal_years_count;
-		if( zeroOrBellow ) {
-			normal_years_count = year.abs().add( BigInteger.ONE ).subtract( leap_years_count );
-		} else {
-			normal_years_count = year.subtract( leap_years_count );
-		}
-		
-		var daysFromYearBegin = normal_years_count.multiply( normal_days_in_year );
-		daysFromYearBegin = daysFromYearBegin.add(leap_years_count.multiply( leap_days_in_year ));
-		var absoluteDaysFromZero = daysFromYearBegin;
-		
-		if( zeroOrBellow && ! year.equals( BigInteger.ZERO ) ) {
-			leap_years_count = leap_calculator.leapYearsUntil( year.add( BigInteger.ONE ) );
-			normal_years_count = year.add( BigInteger.ONE ).abs().add( BigInteger.ONE ).subtract( leap_years_count );
-			
-			daysFromYearBegin = daysFromYearBegin.subtract( normal_years_count.multiply( normal_days_in_year ) );
-			daysFromYearBegin = daysFromYearBegin.subtract( leap_years_count.multiply( leap_days_in_year ) );
-		}
-		
-		boolean isCurrentYearLeap = leap_calculator.isLeapYear();
-		for(int monthID=the_calendar.getYear().getLastMonthIndex(); monthID>month_number-1; monthID--) {
-			var month = the_calendar.getYear().getMonth( monthID );
-			
-			if( isCurrentYearLeap && isThisMonthLeap( monthID ) ) {
-				daysFromYearBegin = daysFromYearBegin.subtract( BigInteger.valueOf( month.normal_days + month.leap_days ) );
-				continue;
-			} else if( !isCurrentYearLeap && isThisMonthLeap( monthID )) {
-				continue;
-			}
-			
-			daysFromYearBegin = daysFromYearBegin.subtract( BigInteger.valueOf( month.normal_days ) );
-			if( isCurrentYearLeap ) {
-				daysFromYearBegin = daysFromYearBegin.subtract( BigInteger.valueOf( month.leap_days ) );
-			}
-		}
-		
-		if( zeroOrBellow ) {
-			if( daysFromYearBegin.compareTo( BigInteger.ZERO ) < 0 ) { //ugly hack
-				daysFromYearBegin = BigInteger.ZERO;
-			}
-			return absoluteDaysFromZero.subtract( daysFromYearBegin ).negate();
-		} else {
-			return daysFromYearBegin;
-		}
+	/**
+	 * Lays out all months of the current year, the current month doesn't change.
+	 * @see SimulationEngine#getListOfMonthsInTheYear(BigInteger)
+	 */
+	public MonthInYear[] getListOfMonthsInTheYear() {
+		return engine.getListOfMonthsInTheYear( era_year );
 	}
 }
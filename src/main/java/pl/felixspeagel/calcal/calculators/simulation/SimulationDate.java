@@ -0,0 +1,16 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import java.math.BigInteger;
+
+/**
+ * A day in a simulated calendar.
+ * @param era_year the year as displayed
+ * @param month index of the month, from 0
+ * @param day day of the month, from 1
+ */
+public record SimulationDate(
+		BigInteger era_year,
+		int month,
+		int day
+) {
+}
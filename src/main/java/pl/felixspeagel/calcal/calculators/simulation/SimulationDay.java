@@ -0,0 +1,22 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import java.math.BigInteger;
+
+/**
+ * Everything known about a single simulated day.
+ * @param day_number the day number, as in {@link SimulationEngine#toDayNumber(SimulationDate)}
+ * @param date the date of the day
+ * @param week_day the day of the week, from 0
+ * @param leap_year is the year of the day leap
+ * @param border_moon the moon phase which begins on the day, null if none or without reals
+ * @param border_season the season which begins on the day, null if none or without reals
+ */
+public record SimulationDay(
+		BigInteger day_number,
+		SimulationDate date,
+		int week_day,
+		boolean leap_year,
+		MoonPhase border_moon,
+		Season border_season
+) {
+}
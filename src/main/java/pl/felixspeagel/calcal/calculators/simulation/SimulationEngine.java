@@ -0,0 +1,515 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import pl.felixspeagel.calcal.calendar.Calendar;
+import pl.felixspeagel.calcal.calendar.CompiledCalendar;
+import pl.felixspeagel.calcal.calendar.SpecialFeature;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Answers questions about a simulated calendar: what a month looks like, which day number a date has, and so on.
+ * <p>
+ * It has no current month, each question says which year and month it's about. Nothing in it changes
+ * after it's made: the leap calculator is only asked about given years and every layout moves its own
+ * copy of the reals. So one engine can be shared by any number of threads, see {@link Simulation}
+ * for a movable position on top of it.
+ */
+public final class SimulationEngine {
+	
+	/**
+	 * How many years the estimate of {@link #yearContaining} may be corrected by.
+	 * It's off by a few years at most, so more means the leap years aren't counted right.
+	 */
+	private static final int MAX_YEAR_CORRECTION = 10_000;
+	
+	private final CompiledCalendar the_calendar;
+	private final int week_shift;
+	private final BigInteger epoch;
+	
+	private final BigInteger normal_days_in_year;
+	private final BigInteger leap_extra_days;
+	private final BigInteger months_in_normal_year;
+	private final BigInteger leap_extra_months;
+	private final LeapCalculator leap_calculator; // only for isLeapYear(year) and leapYearsUntil, which don't change it
+	
+	private final RealsCalculator reals; // never moved, only copied
+	private final PhaseEventFinder<MoonPhase> moon_events;
+	private final PhaseEventFinder<Season> season_events;
+	
+	public SimulationEngine(Calendar calendar, int week_day_shift, BigInteger era_begin,
+		MixedFraction real_month_length, MixedFraction real_year_length,
+	    MixedFraction month_shift, MixedFraction year_shift
+	) {
+		this( new CompiledCalendar( calendar ), week_day_shift, era_begin,
+				real_month_length, real_year_length,
+				month_shift, year_shift
+		);
+	}
+	
+	public SimulationEngine(CompiledCalendar calendar, int week_day_shift, BigInteger era_begin,
+		MixedFraction real_month_length, MixedFraction real_year_length,
+	    MixedFraction month_shift, MixedFraction year_shift
+	) {
+		the_calendar = calendar;
+		week_shift = week_day_shift;
+		epoch = era_begin;
+		if(
+				real_month_length != null &&
+				real_year_length != null &&
+				month_shift != null &&
+				year_shift != null
+		) {
+			reals = new TrueRealsCalculator(real_month_length, real_year_length,
+					month_shift, year_shift
+			);
+			moon_events = PhaseEventFinder.ofMoon( real_month_length, month_shift );
+			season_events = PhaseEventFinder.ofSeasons( real_year_length, year_shift );
+		} else {
+			reals = new NullRealsCalculator();
+			moon_events = null;
+			season_events = null;
+		}
+		
+		normal_days_in_year = BigInteger.valueOf( the_calendar.getDaysInYear( false ) );
+		leap_extra_days = BigInteger.valueOf( the_calendar.getDaysInYear( true ) - the_calendar.getDaysInYear( false ) );
+		leap_extra_months = the_calendar.getLeapMonthIndex() >= 0 ? BigInteger.ONE : BigInteger.ZERO;
+		months_in_normal_year = BigInteger.valueOf( the_calendar.getMonthCount() ).subtract( leap_extra_months );
+		
+		leap_calculator = LeapCalculator.of( the_calendar );
+	}
+	
+	public CompiledCalendar getCalendar() {
+		return the_calendar;
+	}
+	public int getWeekLength() {
+		return the_calendar.getWeekLength();
+	}
+	public BigInteger getEpoch() {
+		return epoch;
+	}
+	
+	/**
+	 * @return the finder of moon phases, in day numbers; null if the simulation has no reals
+	 */
+	public PhaseEventFinder<MoonPhase> getMoonEvents() {
+		return moon_events;
+	}
+	/**
+	 * @return the finder of seasons, in day numbers; null if the simulation has no reals
+	 */
+	public PhaseEventFinder<Season> getSeasonEvents() {
+		return season_events;
+	}
+	
+	public boolean isLeapYear(BigInteger era_year) {
+		return leap_calculator.isLeapYear( era_year.subtract( epoch ) );
+	}
+	/**
+	 * @return false for the leap month in a normal year
+	 */
+	public boolean hasMonth(BigInteger era_year, int month) {
+		return ! the_calendar.isLeapMonth( month ) || isLeapYear( era_year );
+	}
+	
+	public String getMonthName(int month) {
+		return the_calendar.getMonthName( month );
+	}
+	public SpecialFeature getMonthFeature(int month) {
+		if( the_calendar.isMonthFeature( month ) ) {
+			return the_calendar.getFeature();
+		} else {
+			return SpecialFeature.NONE;
+		}
+	}
+	
+	/**
+	 * Lays out the days of a month in weeks.
+	 */
+	public DayInMonth[][] getListOfDaysInTheMonth(BigInteger era_year, int month) {
+		var year = era_year.subtract( epoch );
+		var is_leap = leap_calculator.isLeapYear( year );
+		var days_so_far = daysBeforeYear( year ).add( BigInteger.valueOf( the_calendar.getDaysBeforeMonth( month, is_leap ) ) );
+		var month_reals = reals.copy();
+		month_reals.setDaysSoFar( days_so_far );
+		
+		var days_in_month = the_calendar.getDaysInMonth( month, is_leap );
+		return layOutMonth( days_in_month, weekDayOf( days_so_far ), month_reals );
+	}
+	
+	/**
+	 * Lays out all months of a year at once. The first day of the year is computed
+	 * only once, then the week day and the reals just go on from one month to the next.
+	 * @return the months which are there this year, in order
+	 */
+	public MonthInYear[] getListOfMonthsInTheYear(BigInteger era_year) {
+		var year = era_year.subtract( epoch );
+		var is_leap = leap_calculator.isLeapYear( year );
+		var year_begin = daysBeforeYear( year );
+		var year_reals = reals.copy();
+		year_reals.setDaysSoFar( year_begin );
+		int day_in_week = weekDayOf( year_begin );
+		
+		var months = new ArrayList<MonthInYear>( the_calendar.getMonthCount() );
+		for(int month=0; month<the_calendar.getMonthCount(); month++) {
+			if( the_calendar.isLeapMonth( month ) && ! is_leap ) {
+				continue;
+			}
+			var days_in_month = the_calendar.getDaysInMonth( month, is_leap );
+			if( the_calendar.weekStartsWithMonth() ) {
+				day_in_week = 0;
+			}
+			months.add( new MonthInYear( month, the_calendar.getMonthName( month ), getMonthFeature( month ),
+					layOutMonth( days_in_month, day_in_week, year_reals ) ) );
+			day_in_week = ( day_in_week + days_in_month ) % the_calendar.getWeekLength();
+		}
+		return months.toArray( new MonthInYear[0] );
+	}
+	
+	/**
+	 * @return months from the first month of the year 1 after the epoch to the given one, negative before it
+	 */
+	public BigInteger getMonthsSinceEpoch(BigInteger era_year, int month) {
+		var year = era_year.subtract( epoch );
+		var months_before = amountBeforeYear( year, months_in_normal_year, leap_extra_months );
+		return months_before.add( BigInteger.valueOf( positionInYear( month, leap_calculator.isLeapYear( year ) ) ) );
+	}
+	
+	/**
+	 * Finds the month with the given number, as counted by {@link #getMonthsSinceEpoch(BigInteger, int)}.
+	 * The year comes from the leap arithmetic, without stepping through the months between.
+	 * @return the first day of the month
+	 */
+	public SimulationDate fromMonthsSinceEpoch(BigInteger months) {
+		var year = yearContaining( months, months_in_normal_year, leap_extra_months );
+		var is_leap = leap_calculator.isLeapYear( year );
+		int month = months.subtract( amountBeforeYear( year, months_in_normal_year, leap_extra_months ) ).intValueExact();
+		// the leap month isn't counted in normal years
+		int leap_month = the_calendar.getLeapMonthIndex();
+		if( ! is_leap && leap_month >= 0 && month >= leap_month ) {
+			month++;
+		}
+		return new SimulationDate( year.add( epoch ), month, 1 );
+	}
+	
+	/**
+	 * Which month of the year it is, not counting the leap month in a normal year.
+	 */
+	private int positionInYear(int month, boolean is_leap) {
+		int leap_month = the_calendar.getLeapMonthIndex();
+		if( ! is_leap && leap_month >= 0 && month > leap_month ) {
+			return month - 1;
+		}
+		return month;
+	}
+	
+	/**
+	 * The week day the day falls on, or 0 if every month starts a new week.
+	 */
+	private int weekDayOf(BigInteger day_number) {
+		if( the_calendar.weekStartsWithMonth() ) {
+			//easy - month always start with the week beginning
+			return 0;
+		}
+		var week_length = BigInteger.valueOf( the_calendar.getWeekLength() );
+		return day_number.add( BigInteger.valueOf( week_shift ) ).mod( week_length ).intValue();
+	}
+	
+	/**
+	 * Puts the days of a month into weeks, moving the reals one day forward for each of them.
+	 */
+	private DayInMonth[][] layOutMonth(int days_in_month, int day_in_week, RealsCalculator month_reals) {
+		var week_length = the_calendar.getWeekLength();
+		var weeks_in_month = new ArrayList<DayInMonth[]>( days_in_month / week_length + 2 );
+		var current_week = new DayInMonth[week_length];
+		for(var day=1; day<days_in_month+1; day++) {
+			
+			current_week[day_in_week] = new DayInMonth( day, month_reals.getBorderMoon(), month_reals.getBorderSeason() );
+			day_in_week++;
+			if( day_in_week == week_length ) {
+				weeks_in_month.add( current_week );
+				current_week = new DayInMonth[week_length];
+				day_in_week = 0;
+			}
+			
+			month_reals.moveToNextDay();
+		}
+		
+		if( day_in_week > 0 ) {
+			weeks_in_month.add( current_week );
+		}
+		return weeks_in_month.toArray(new DayInMonth[0][]);
+	}
+	
+	/**
+	 * Goes through every day of the era years from the first one up to the last one.
+	 * <p>
+	 * It splits by blocks of whole years, each part finding its first day with {@link #toDayNumber(SimulationDate)}'s
+	 * closed form and getting its own reals, so the parts can be walked in parallel.
+	 * @param from_era_year the first year, included
+	 * @param to_era_year the last year, not included
+	 */
+	public Spliterator<SimulationDay> daySpliterator(BigInteger from_era_year, BigInteger to_era_year) {
+		return new DaySpliterator( from_era_year.subtract( epoch ), to_era_year.subtract( epoch ) );
+	}
+	/**
+	 * The days of {@link #daySpliterator(BigInteger, BigInteger)} as a stream.
+	 */
+	public Stream<SimulationDay> streamOfDays(BigInteger from_era_year, BigInteger to_era_year) {
+		return StreamSupport.stream( daySpliterator( from_era_year, to_era_year ), false );
+	}
+	
+	/**
+	 * Walks the days of a block of years. The leap calculator and the calendar are only read,
+	 * everything which changes from day to day belongs to the spliterator.
+	 */
+	private final class DaySpliterator implements Spliterator<SimulationDay> {
+		
+		private BigInteger year; // the year being walked, or the next one to begin
+		private final BigInteger end_year;
+		private final boolean sized;
+		
+		private boolean started;
+		private boolean in_year;
+		private BigInteger era_year;
+		private boolean is_leap;
+		private int month;
+		private int day;
+		private int days_in_month;
+		private BigInteger day_number;
+		private int week_day;
+		private RealsCalculator day_reals;
+		
+		DaySpliterator(BigInteger first_year, BigInteger end_year) {
+			this.year = first_year;
+			this.end_year = end_year.max( first_year );
+			sized = daysBeforeYear( this.end_year ).subtract( daysBeforeYear( first_year ) ).bitLength() < 63;
+		}
+		
+		/**
+		 * Moves to the first month with any days, beginning with the given one.
+		 * @return false if there is none left in the year
+		 */
+		private boolean findMonth(int from_month) {
+			month = from_month;
+			while( month < the_calendar.getMonthCount() ) {
+				days_in_month = the_calendar.getDaysInMonth( month, is_leap );
+				if( days_in_month > 0 ) {
+					day = 1;
+					if( the_calendar.weekStartsWithMonth() ) {
+						week_day = 0;
+					}
+					return true;
+				}
+				month++;
+			}
+			return false;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super SimulationDay> action) {
+			while( ! in_year ) {
+				if( year.compareTo( end_year ) >= 0 ) {
+					return false;
+				}
+				if( ! started ) {
+					// the only closed form computation, after it the days just go on
+					day_number = daysBeforeYear( year );
+					week_day = weekDayOf( day_number );
+					day_reals = reals.copy();
+					day_reals.setDaysSoFar( day_number );
+					started = true;
+				}
+				era_year = year.add( epoch );
+				is_leap = leap_calculator.isLeapYear( year );
+				in_year = findMonth( 0 );
+				if( ! in_year ) {
+					year = year.add( BigInteger.ONE );
+				}
+			}
+			
+			action.accept( new SimulationDay( day_number, new SimulationDate( era_year, month, day ), week_day, is_leap,
+					day_reals.getBorderMoon(), day_reals.getBorderSeason() ) );
+			
+			day_reals.moveToNextDay();
+			day_number = day_number.add( BigInteger.ONE );
+			week_day = ( week_day + 1 ) % the_calendar.getWeekLength();
+			day++;
+			if( day > days_in_month && ! findMonth( month + 1 ) ) {
+				in_year = false;
+				year = year.add( BigInteger.ONE );
+			}
+			return true;
+		}
+		
+		/**
+		 * Gives away the first half of the years, as long as no day was walked yet.
+		 */
+		@Override
+		public Spliterator<SimulationDay> trySplit() {
+			if( started ) {
+				return null;
+			}
+			var half = end_year.subtract( year ).shiftRight( 1 );
+			if( half.signum() == 0 ) {
+				return null;
+			}
+			var middle = year.add( half );
+			var prefix = new DaySpliterator( year, middle );
+			year = middle;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			var begin = started ? day_number : daysBeforeYear( year );
+			var size = daysBeforeYear( end_year ).subtract( begin );
+			return size.bitLength() < 63 ? size.longValue() : Long.MAX_VALUE;
+		}
+		
+		@Override
+		public int characteristics() {
+			int result = ORDERED | NONNULL | IMMUTABLE;
+			return sized ? result | SIZED | SUBSIZED : result;
+		}
+	}
+	
+	/**
+	 * Converts a date into its day number: the days from the first day of the year 1 after the epoch,
+	 * negative before it.
+	 * @throws IllegalArgumentException if there is no such day in the calendar
+	 */
+	public BigInteger toDayNumber(BigInteger era_year, int month, int day) {
+		var year = era_year.subtract( epoch );
+		var is_leap = leap_calculator.isLeapYear( year );
+		if( month < 0 || month > the_calendar.getLastMonthIndex() ) {
+			throw new IllegalArgumentException("No month " + month + " in the calendar.");
+		}
+		var days_in_month = the_calendar.getDaysInMonth( month, is_leap );
+		if( day < 1 || day > days_in_month ) {
+			throw new IllegalArgumentException("No day " + day + " in the month " + month + " of the year " + era_year + ".");
+		}
+		var day_of_year = the_calendar.getDaysBeforeMonth( month, is_leap ) + day - 1;
+		return daysBeforeYear( year ).add( BigInteger.valueOf( day_of_year ) );
+	}
+	public BigInteger toDayNumber(SimulationDate date) {
+		return toDayNumber( date.era_year(), date.month(), date.day() );
+	}
+	
+	/**
+	 * Converts a day number back into a date.
+	 * <p>
+	 * The year is estimated from the average year length and corrected by at most a few years,
+	 * then the month is found with a binary search over the month offsets.
+	 */
+	public SimulationDate fromDayNumber(BigInteger day_number) {
+		var year = yearContaining( day_number, normal_days_in_year, leap_extra_days );
+		var is_leap = leap_calculator.isLeapYear( year );
+		int day_of_year = day_number.subtract( daysBeforeYear( year ) ).intValueExact();
+		int month = the_calendar.getMonthAtDay( day_of_year, is_leap );
+		int day = day_of_year - the_calendar.getDaysBeforeMonth( month, is_leap ) + 1;
+		return new SimulationDate( year.add( epoch ), month, day );
+	}
+	
+	/**
+	 * Finds the year with the given day or month, counted from the beginning of the year 1.
+	 * <p>
+	 * The amount divided by the average year gives a year at most a few years off,
+	 * the share of leap years coming from the leap count up to a first rough guess.
+	 * @param per_year days or months of a normal year
+	 * @param leap_extra what a leap year has more
+	 * @throws ArithmeticException if it takes more than {@link #MAX_YEAR_CORRECTION} years to correct
+	 */
+	private BigInteger yearContaining(BigInteger amount, BigInteger per_year, BigInteger leap_extra) {
+		if( per_year.signum() == 0 && leap_extra.signum() == 0 ) {
+			throw new ArithmeticException("The calendar's years are empty.");
+		}
+		if( leap_extra.signum() == 0 ) {
+			// all years are the same
+			var division = amount.divideAndRemainder( per_year );
+			var whole_years = division[1].signum() < 0 ? division[0].subtract( BigInteger.ONE ) : division[0];
+			return whole_years.add( BigInteger.ONE );
+		}
+		var year = BigInteger.ONE;
+		var rough_years = amount.divide( per_year.add( leap_extra ) );
+		if( rough_years.signum() != 0 ) {
+			// amount = years * per_year + leaps * leap_extra, with leaps / years taken from the rough guess
+			var leaps = leap_calculator.leapYearsUntil( rough_years ).abs();
+			var sample = rough_years.abs();
+			var average_numerator = per_year.multiply( sample ).add( leap_extra.multiply( leaps ) );
+			if( average_numerator.signum() == 0 ) {
+				year = rough_years.add( BigInteger.ONE );
+			} else {
+				year = amount.multiply( sample ).divide( average_numerator ).add( BigInteger.ONE );
+			}
+		}
+		
+		int corrections = 0;
+		var year_begin = amountBeforeYear( year, per_year, leap_extra );
+		while( year_begin.compareTo( amount ) > 0 ) {
+			if( ++corrections > MAX_YEAR_CORRECTION ) {
+				throw new ArithmeticException("The year estimate is too far off.");
+			}
+			year = year.subtract( BigInteger.ONE );
+			year_begin = amountBeforeYear( year, per_year, leap_extra );
+		}
+		var next_year_begin = year_begin.add( per_year );
+		if( leap_calculator.isLeapYear( year ) ) next_year_begin = next_year_begin.add( leap_extra );
+		while( next_year_begin.compareTo( amount ) <= 0 ) {
+			if( ++corrections > MAX_YEAR_CORRECTION ) {
+				throw new ArithmeticException("The year estimate is too far off.");
+			}
+			year = year.add( BigInteger.ONE );
+			next_year_begin = next_year_begin.add( per_year );
+			if( leap_calculator.isLeapYear( year ) ) next_year_begin = next_year_begin.add( leap_extra );
+		}
+		return year;
+	}
+	
+	/**
+	 * @return days from the first date to the second, negative if the second is earlier
+	 */
+	public BigInteger daysBetween(SimulationDate from, SimulationDate to) {
+		return toDayNumber( to ).subtract( toDayNumber( from ) );
+	}
+	
+	/**
+	 * @return the date the given number of days after the date, or before it if negative
+	 */
+	public SimulationDate addDays(SimulationDate date, BigInteger days) {
+		return fromDayNumber( toDayNumber( date ).add( days ) );
+	}
+	
+	private BigInteger daysBeforeYear(BigInteger year) {
+		return amountBeforeYear( year, normal_days_in_year, leap_extra_days );
+	}
+	
+	/**
+	 * Days or months from the beginning of the year 1 to the beginning of the given year:
+	 * (year - 1) normal years, plus the leap extra for each leap year in between,
+	 * with both counts negative for the years before the year 1.
+	 * @param per_year days or months of a normal year
+	 * @param leap_extra what a leap year has more
+	 */
+	private BigInteger amountBeforeYear(BigInteger year, BigInteger per_year, BigInteger leap_extra) {
+		var result = year.subtract( BigInteger.ONE ).multiply( per_year );
+		if( leap_extra.signum() == 0 ) {
+			return result;
+		}
+		BigInteger leap_years_between;
+		int compared_to_one = year.compareTo( BigInteger.ONE );
+		if( compared_to_one > 0 ) {
+			leap_years_between = leap_calculator.leapYearsUntil( year.subtract( BigInteger.ONE ) );
+		} else if( compared_to_one == 0 ) {
+			leap_years_between = BigInteger.ZERO;
+		} else {
+			leap_years_between = leap_calculator.leapYearsUntil( year ).negate();
+		}
+		return result.add( leap_years_between.multiply( leap_extra ) );
+	}
+}
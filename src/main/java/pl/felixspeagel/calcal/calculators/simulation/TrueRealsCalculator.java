@@ -6,19 +6,17 @@ import java.math.BigInteger;
 
 public class TrueRealsCalculator implements RealsCalculator {
 	
+	private static final MoonPhase[] MOON_PHASES = MoonPhase.values();
+	private static final Season[] SEASONS = Season.values();
+	
 	private final MixedFraction month_length;
 	private final MixedFraction year_length;
 	private final MixedFraction month_shift;
 	private final MixedFraction year_shift;
 	
-	//constans
-	private final MixedFraction quarter;
-	private final MixedFraction half;
-	private final MixedFraction three_fourths;
-	private final MixedFraction one_eight;
-	private final MixedFraction three_eights;
-	private final MixedFraction five_eights;
-	private final MixedFraction seven_eights;
+	//the moon goes through eight phases in a month, the sun through four seasons in a year
+	private final PhaseClock moon_clock;
+	private final PhaseClock season_clock;
 	
 	public TrueRealsCalculator(
 			MixedFraction real_month_length, MixedFraction real_year_length,
@@ -29,93 +27,60 @@ public class TrueRealsCalculator implements RealsCalculator {
 		month_shift = real_month_shift;
 		year_shift = real_year_shift;
 		
-		half = MixedFraction.ONE_HALF;
-		quarter = half.multiply( half );
-		three_fourths = quarter.multiply( 3 );
-		one_eight = quarter.multiply( half );
-		three_eights = one_eight.multiply( 3 );
-		five_eights = one_eight.multiply( 5 );
-		seven_eights = one_eight.multiply( 7 );
-		
-		daysSoFarForMonth = daysSoFarForYear = MixedFraction.ZERO;
+		moon_clock = new PhaseClock( month_length, month_shift, MOON_PHASES.length );
+		season_clock = new PhaseClock( year_length, year_shift, SEASONS.length );
 		previousMoon = null;
 		previousSeason = null;
 	}
 	
-	private MixedFraction daysSoFarForYear;
-	private MixedFraction daysSoFarForMonth;
-	private MoonPhase previousMoon;
-	private Season previousSeason;
-	
-	@Override
-	public void setDaysSoFar(BigInteger days) {
-		daysSoFarForMonth = new MixedFraction(days).subtract( month_shift );
-		daysSoFarForYear = new MixedFraction(days).subtract( year_shift );
-		
-		previousMoon = getMoonPhase( daysSoFarForMonth.subtract( MixedFraction.ONE ) );
-		previousSeason = getSeason( daysSoFarForYear.subtract( MixedFraction.ONE ) );
+	private TrueRealsCalculator(TrueRealsCalculator other) {
+		month_length = other.month_length;
+		year_length = other.year_length;
+		month_shift = other.month_shift;
+		year_shift = other.year_shift;
 		
-		currentMoon = getMoonPhase( daysSoFarForMonth );
-		currentSeason = getSeason( daysSoFarForYear );
+		moon_clock = new PhaseClock( other.moon_clock );
+		season_clock = new PhaseClock( other.season_clock );
+		previousMoon = other.previousMoon;
+		previousSeason = other.previousSeason;
+		currentMoon = other.currentMoon;
+		currentSeason = other.currentSeason;
 	}
 	
-	private MoonPhase getMoonPhase(MixedFraction forDay) {
-		var f = forDay.abs().divide( month_length ).getFraction();
-		if( forDay.isNegative() ) {
-			f = MixedFraction.ONE.subtract( f );
-		}
-		
-		if( f.compareTo( MixedFraction.ZERO ) >= 0 && f.compareTo( one_eight ) < 0 ) {
-			return MoonPhase.NEW_MOON;
-		} else if( f.compareTo( one_eight ) >= 0 && f.compareTo( quarter ) < 0 ) {
-			return MoonPhase.WAXING_CRESCENT;
-		} else if( f.compareTo( quarter ) >= 0 && f.compareTo( three_eights ) < 0 ) {
-			return MoonPhase.FIRST_QUARTER;
-		} else if( f.compareTo( three_eights ) >= 0 && f.compareTo( half ) < 0 ) {
-			return MoonPhase.WAXING_GIBBOUS;
-		} else if( f.compareTo( half ) >= 0 && f.compareTo( five_eights ) < 0 ) {
-			return MoonPhase.FULL_MOON;
-		} else if( f.compareTo( five_eights ) >= 0 && f.compareTo( three_fourths ) < 0 ) {
-			return MoonPhase.WANING_GIBBOUS;
-		} else if( f.compareTo( three_fourths ) >= 0 && f.compareTo( seven_eights ) < 0 ) {
-			return MoonPhase.LAST_QUARTER;
-		} else if( f.compareTo( seven_eights ) >= 0 && f.compareTo( MixedFraction.ONE ) < 0 ) {
-			return MoonPhase.WANING_CRESCENT;
-		}
-		return null; //shouldn't reach
-	}
-	
-	private Season getSeason(MixedFraction forDay) {
-		var f = forDay.abs().divide( year_length ).getFraction();
-		if( forDay.isNegative() ) {
-			f = MixedFraction.ONE.subtract( f );
-		}
-		
-		if( f.compareTo( MixedFraction.ZERO ) >= 0 && f.compareTo( quarter ) < 0 ) {
-			return Season.WINTER;
-		} else if( f.compareTo( quarter ) >= 0 && f.compareTo( half ) < 0 ) {
-			return Season.SPRING;
-		} else if( f.compareTo( half ) >= 0 && f.compareTo( three_fourths ) < 0 ) {
-			return Season.SUMMER;
-		} else if( f.compareTo( three_fourths ) >= 0 && f.compareTo( MixedFraction.ONE ) < 0 ) {
-			return Season.FALL;
-		}
-		return null; //shouldn't reach
+	/**
+	 * Copies the calculator together with its current day. The periods aren't computed again.
+	 */
+	@Override
+	public RealsCalculator copy() {
+		return new TrueRealsCalculator( this );
 	}
 	
+	private MoonPhase previousMoon;
+	private Season previousSeason;
 	private MoonPhase currentMoon;
 	private Season currentSeason;
 	
+	@Override
+	public void setDaysSoFar(BigInteger days) {
+		// start a day earlier to know where the previous day was
+		var day_before = days.subtract( BigInteger.ONE );
+		moon_clock.set( day_before );
+		season_clock.set( day_before );
+		currentMoon = MOON_PHASES[moon_clock.part()];
+		currentSeason = SEASONS[season_clock.part()];
+		moveToNextDay();
+	}
+	
 	@Override
 	public void moveToNextDay() {
-		daysSoFarForMonth = daysSoFarForMonth.add( MixedFraction.ONE );
-		daysSoFarForYear = daysSoFarForYear.add( MixedFraction.ONE );
+		moon_clock.nextDay();
+		season_clock.nextDay();
 		
 		previousMoon = currentMoon;
 		previousSeason = currentSeason;
 		
-		currentMoon = getMoonPhase( daysSoFarForMonth );
-		currentSeason = getSeason( daysSoFarForYear );
+		currentMoon = MOON_PHASES[moon_clock.part()];
+		currentSeason = SEASONS[season_clock.part()];
 	}
 	
 	@Override
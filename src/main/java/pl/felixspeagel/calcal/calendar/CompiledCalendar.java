@@ -0,0 +1,193 @@
+package pl.felixspeagel.calcal.calendar;
+
+import pl.felixspeagel.calcal.calculators.IntercalationType;
+import pl.felixspeagel.calcal.calculators.Rule;
+
+import java.util.ArrayList;
+
+/**
+ * A frozen copy of a {@link Calendar}, made for calculations.
+ * <p>
+ * Months are kept in flat arrays, together with the days before each month in a normal
+ * and in a leap year. Nothing in it can change, so it can be shared between threads,
+ * and editing the calendar it was made from doesn't affect it.
+ */
+public final class CompiledCalendar {
+	
+	private final String[] month_names;
+	private final int[] normal_days;
+	private final int[] leap_days;
+	
+	//days of each month, and days before each month (one more entry: the whole year)
+	private final int[] days_in_normal_year;
+	private final int[] days_in_leap_year;
+	private final int[] days_before_in_normal_year;
+	private final int[] days_before_in_leap_year;
+	
+	private final SpecialFeature feature;
+	private final int feature_month_index;
+	private final int leap_month_index;
+	
+	private final int week_length;
+	private final boolean week_starts_with_month;
+	
+	private final IntercalationType[] cycle;
+	private final Rule[] active_rules;
+	
+	public CompiledCalendar(Calendar calendar) {
+		var year = calendar.getYear();
+		int count = year.getMonthCount();
+		
+		feature = year.feature;
+		int feature_index = -1;
+		month_names = new String[count];
+		normal_days = new int[count];
+		leap_days = new int[count];
+		for(int i=0; i<count; i++) {
+			var month = year.getMonth( i );
+			month_names[i] = month.name;
+			normal_days[i] = month.normal_days;
+			leap_days[i] = month.leap_days;
+			if( year.isMonthFeature( i ) ) {
+				feature_index = i;
+			}
+		}
+		feature_month_index = feature_index;
+		leap_month_index = feature == SpecialFeature.LEAP ? feature_index : -1;
+		
+		days_in_normal_year = new int[count];
+		days_in_leap_year = new int[count];
+		days_before_in_normal_year = new int[count + 1];
+		days_before_in_leap_year = new int[count + 1];
+		for(int i=0; i<count; i++) {
+			if( i == leap_month_index ) {
+				// only in leap years
+				days_in_leap_year[i] = normal_days[i] + leap_days[i];
+			} else {
+				days_in_normal_year[i] = normal_days[i];
+				days_in_leap_year[i] = normal_days[i] + leap_days[i];
+			}
+			days_before_in_normal_year[i+1] = days_before_in_normal_year[i] + days_in_normal_year[i];
+			days_before_in_leap_year[i+1] = days_before_in_leap_year[i] + days_in_leap_year[i];
+		}
+		
+		week_length = calendar.getWeek().length;
+		week_starts_with_month = calendar.getWeek().starts_with_month;
+		
+		if( calendar.hasCycle() ) {
+			cycle = calendar.getCycle().clone();
+			active_rules = null;
+		} else if( calendar.hasLeapRules() ) {
+			cycle = null;
+			var rules = new ArrayList<Rule>();
+			var all_rules = calendar.getRules();
+			for(int i=0; i<all_rules.length; i++) {
+				if( calendar.isRuleTurnedOn( i ) ) {
+					rules.add( all_rules[i] );
+				}
+			}
+			active_rules = rules.toArray( new Rule[0] );
+		} else {
+			cycle = null;
+			active_rules = null;
+		}
+	}
+	
+	public int getMonthCount() {
+		return month_names.length;
+	}
+	public int getLastMonthIndex() {
+		return month_names.length - 1;
+	}
+	
+	public String getMonthName(int index) {
+		return month_names[index];
+	}
+	/**
+	 * @return a new copy of the month as it was in the calendar
+	 */
+	public Month getMonth(int index) {
+		return new Month( month_names[index], normal_days[index], leap_days[index] );
+	}
+	
+	/**
+	 * Days of a month in the given kind of year; 0 for the leap month in a normal year.
+	 */
+	public int getDaysInMonth(int index, boolean leap_year) {
+		return leap_year ? days_in_leap_year[index] : days_in_normal_year[index];
+	}
+	/**
+	 * Days of the year before the month begins. The month count as the index gives the length of the year.
+	 */
+	public int getDaysBeforeMonth(int index, boolean leap_year) {
+		return leap_year ? days_before_in_leap_year[index] : days_before_in_normal_year[index];
+	}
+	public int getDaysInYear(boolean leap_year) {
+		return getDaysBeforeMonth( month_names.length, leap_year );
+	}
+	/**
+	 * Finds the month a day of the year falls in, with a binary search over the month offsets.
+	 * @param day_of_year 0 for the first day of the year
+	 * @return the month index, -1 if the day is out of the year
+	 */
+	public int getMonthAtDay(int day_of_year, boolean leap_year) {
+		var days_before = leap_year ? days_before_in_leap_year : days_before_in_normal_year;
+		if( day_of_year < 0 || day_of_year >= days_before[month_names.length] ) {
+			return -1;
+		}
+		// the last month which begins on the day or before it; a month without days is skipped, as the next one begins at the same day
+		int low = 0;
+		int high = month_names.length - 1;
+		while( low < high ) {
+			int middle = ( low + high + 1 ) >>> 1;
+			if( days_before[middle] <= day_of_year ) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+	
+	public SpecialFeature getFeature() {
+		return feature;
+	}
+	public boolean isMonthFeature(int index) {
+		return index == feature_month_index && index >= 0;
+	}
+	/**
+	 * @return the month which exists only in leap years, -1 if there isn't one
+	 */
+	public int getLeapMonthIndex() {
+		return leap_month_index;
+	}
+	public boolean isLeapMonth(int index) {
+		return index == leap_month_index && index >= 0;
+	}
+	
+	public int getWeekLength() {
+		return week_length;
+	}
+	public boolean weekStartsWithMonth() {
+		return week_starts_with_month;
+	}
+	
+	public boolean hasCycle() {
+		return cycle != null;
+	}
+	public boolean hasLeapRules() {
+		return active_rules != null;
+	}
+	/**
+	 * @return a copy of the leap cycle, null if there isn't one
+	 */
+	public IntercalationType[] getCycle() {
+		return cycle == null ? null : cycle.clone();
+	}
+	/**
+	 * @return a copy of the rules which were turned on, null if the calendar has no rules
+	 */
+	public Rule[] getActiveRules() {
+		return active_rules == null ? null : active_rules.clone();
+	}
+}
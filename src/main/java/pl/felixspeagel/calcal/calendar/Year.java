@@ -1,16 +1,17 @@
 package pl.felixspeagel.calcal.calendar;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 
 public class Year {
 	
-	private final LinkedList<Month> months;
+	private final ArrayList<Month> months;
 	public final SpecialFeature feature;
 	private int feature_month_index;
 	
 	public Year(SpecialFeature year_feature) {
 		feature = year_feature;
-		months = new LinkedList<>();
+		months = new ArrayList<>();
 		feature_month_index = -1;
 	}
 	
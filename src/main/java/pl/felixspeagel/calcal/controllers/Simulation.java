@@ -1,5 +1,7 @@
 package pl.felixspeagel.calcal.controllers;
 
+import pl.felixspeagel.calcal.calculators.simulation.MonthGridCache;
+import pl.felixspeagel.calcal.calculators.simulation.MonthPrefetcher;
 import pl.felixspeagel.calcal.file.ProjectReader;
 import pl.felixspeagel.calcal.file.template.SimulationWriter;
 
@@ -10,17 +12,29 @@ public class Simulation {
 	public final SimulationSettings settings;
 	public final AtomicReference<pl.felixspeagel.calcal.calculators.simulation.Simulation> simulation;
 	public final SimulationWriter writer;
+	public final MonthGridCache grids;
+	public final MonthPrefetcher prefetcher;
 	
 	public Simulation(ProjectReader project) {
 		settings = new SimulationSettings( project );
 		simulation = new AtomicReference<>(null);
 		writer = SimulationWriter.getInstance(simulation);
+		grids = new MonthGridCache( 64 );
+		prefetcher = new MonthPrefetcher( grids, 3 );
 	}
 	
 	public void updateSimulationIfNecessary() {
 		if( settings.isUpdateNeeded() ) {
 			simulation.set(settings.getNewSimulation());
+			grids.invalidate();
 		}
 	}
 	
+	/**
+	 * Frees the background threads, to be called when the simulation window closes.
+	 */
+	public void close() {
+		prefetcher.shutdown();
+	}
+	
 }
@@ -1,6 +1,7 @@
 package pl.felixspeagel.calcal.controllers;
 
 import pl.felixspeagel.calcal.calculators.Rule;
+import pl.felixspeagel.calcal.calendar.CompiledCalendar;
 import pl.felixspeagel.calcal.calendar.SpecialFeature;
 import pl.felixspeagel.calcal.controllers.models.CalendarTypeData;
 import pl.felixspeagel.calcal.file.*;
@@ -107,20 +108,9 @@ public class Summary {
 		
 		//days count
 		var calendar = the_data.example_calendar();
-		var normal_days_count = 0;
-		var leap_days_count = 0;
-		var has_leap_month = calendar.getYear().feature == SpecialFeature.LEAP;
-		
-		for(var monthID = 0; monthID<calendar.getYear().getMonthCount(); monthID++) {
-			var month = calendar.getYear().getMonth( monthID );
-			if( has_leap_month && calendar.getYear().isMonthFeature( monthID ) ) {
-				leap_days_count += month.normal_days + month.leap_days;
-			} else {
-				normal_days_count += month.normal_days;
-				leap_days_count += month.leap_days;
-			}
-		}
-		the_writer.writeDayCount(normal_days_count, leap_days_count);
+		var compiled = new CompiledCalendar( calendar );
+		var normal_days_count = compiled.getDaysInYear( false );
+		the_writer.writeDayCount(normal_days_count, compiled.getDaysInYear( true ) - normal_days_count);
 		
 		//used solution
 		the_writer.writeUsedSolution(the_data.solution());
@@ -138,12 +128,12 @@ public class Summary {
 		}
 		
 		//month descriptions
-		var feature = calendar.getYear().feature;
-		for(var monthID=0; monthID < calendar.getYear().getMonthCount(); monthID++) {
+		var feature = compiled.getFeature();
+		for(var monthID=0; monthID < compiled.getMonthCount(); monthID++) {
 			the_writer.writeAboutMonth(
-					calendar.getYear().getMonth( monthID ),
+					compiled.getMonth( monthID ),
 					monthID+1,
-					calendar.getYear().isMonthFeature( monthID ) ? feature : SpecialFeature.NONE
+					compiled.isMonthFeature( monthID ) ? feature : SpecialFeature.NONE
 			);
 		}
 		
@@ -3,6 +3,7 @@ package pl.felixspeagel.calcal.controllers;
 import pl.felixspeagel.calcal.controllers.models.YearMonthLengthData;
 import pl.felixspeagel.calcal.math.*;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 
 /**
@@ -49,6 +50,96 @@ public class YearMonthLengthInput {
 		return month_input;
 	}
 	
+	/**
+	 * The largest denominator of the month and year length, or null to keep the exact values
+	 */
+	private Integer max_denominator = null;
+	private String max_denominator_text = "";
+	private boolean max_denominator_error = false;
+	public Integer getMaxDenominator() {
+		return max_denominator;
+	}
+	/**
+	 * Turns on or off the approximation mode, in which the lengths are replaced
+	 * with the closest fractions of a small denominator.
+	 * @param bound the largest denominator, or null to use the exact values
+	 */
+	public void setMaxDenominator(Integer bound) {
+		if( bound != null && bound <= 0 ) {
+			throw new IllegalArgumentException("Denominator bound must be positive.");
+		}
+		max_denominator = bound;
+		max_denominator_text = bound == null ? "" : bound.toString();
+		max_denominator_error = false;
+		refreshGUI( false );
+	}
+	/**
+	 * Sets the denominator bound from the user's text; an empty text turns the approximation off
+	 */
+	public void enterMaxDenominatorText(String text) {
+		max_denominator_text = text.strip();
+		if( max_denominator_text.isEmpty() ) {
+			max_denominator = null;
+			max_denominator_error = false;
+		} else {
+			try {
+				int value = Integer.parseInt( max_denominator_text );
+				if( value <= 0 ) {
+					max_denominator_error = true;
+				} else {
+					max_denominator = value;
+					max_denominator_error = false;
+				}
+			} catch(NumberFormatException e) {
+				max_denominator_error = true;
+			}
+		}
+		refreshGUI( false );
+	}
+	public String getMaxDenominatorText() {
+		return max_denominator_text;
+	}
+	public boolean maxDenominatorInErrorState() {
+		return max_denominator_error;
+	}
+	
+	private MixedFraction approximate(MixedFraction value) {
+		if( max_denominator == null ) {
+			return value;
+		}
+		return ContinuedFraction.bestApproximation( value, BigInteger.valueOf( max_denominator ) );
+	}
+	
+	/**
+	 * @return the month length as it will be used, i.e. approximated in the approximation mode
+	 */
+	public MixedFraction getMonthLength() {
+		return approximate( month_input.getStoredValue() );
+	}
+	/**
+	 * @return the year length as it will be used, i.e. approximated in the approximation mode
+	 */
+	public MixedFraction getYearLength() {
+		return approximate( year_input.getStoredValue() );
+	}
+	
+	/**
+	 * @return how many seconds a year drifts from the entered year length, zero for the exact values
+	 */
+	public MixedFraction getYearErrorInSeconds() {
+		var error = getYearLength().subtract( year_input.getStoredValue() ).abs();
+		return error.multiply( day_input.getStoredValue().seconds_in_day() );
+	}
+	/**
+	 * @return how many seconds the months of one year drift from the entered month length, zero for the exact values
+	 */
+	public MixedFraction getMonthErrorInSeconds() {
+		var month = month_input.getStoredValue();
+		var error = getMonthLength().subtract( month ).abs();
+		var months_in_year = year_input.getStoredValue().divide( month );
+		return error.multiply( months_in_year ).multiply( day_input.getStoredValue().seconds_in_day() );
+	}
+	
 	/**
 	 * Produces the final value from user inputs
 	 * @return object of month and year input
@@ -58,8 +149,8 @@ public class YearMonthLengthInput {
 			return null;
 		}
 		return new YearMonthLengthData(
-				month_input.getStoredValue(),
-				year_input.getStoredValue(),
+				getMonthLength(),
+				getYearLength(),
 				getCalculatedMonthCount(),
 				day_input.getStoredValue()
 			);
@@ -69,14 +160,15 @@ public class YearMonthLengthInput {
 		if( this.inErrorState() ) {
 			return null;
 		} else {
-			var year_int = year_input.getStoredValue().getInteger();
-			var month_int = month_input.getStoredValue().getInteger();
+			var year_int = getYearLength().getInteger();
+			var month_int = getMonthLength().getInteger();
 			return year_int.divide( month_int ).intValue();
 		}
 	}
 	
 	public boolean inErrorState() {
-		return day_input.inErrorState() || month_input.inErrorState() || year_input.inErrorState();
+		return day_input.inErrorState() || month_input.inErrorState() || year_input.inErrorState()
+				|| max_denominator_error;
 	}
 	
 	public static class DayLengthInput {
@@ -214,7 +306,7 @@ public class YearMonthLengthInput {
 		private void formatValue() {
 			switch( number_format ) {
 				case DECIMAL ->
-						text_value = NumberConverter.FractionToDecimalText( stored_value );
+						text_value = NumberConverter.FractionToExactDecimalText( stored_value );
 				case FRACTAL ->
 						text_value = NumberConverter.FractionToText( stored_value );
 				case DAYS_AND_TIME ->
@@ -69,7 +69,8 @@ public class SimulationWriter {
 	public void writeFile(File file) {
 		if( file == null ) return;
 		if( ref.get() == null ) return;
-		var simulation = ref.get().copy();
+		// the engine doesn't move, so it's read without disturbing the view
+		var engine = ref.get().getEngine();
 		
 		var root = templates.get( "root" );
 		var a_year = templates.get( "year" );
@@ -86,21 +87,18 @@ public class SimulationWriter {
 			a_year.reset();
 			a_year.setContent( "year.number", year.toString() );
 			
-			simulation.gotoFirstMonth();
-			simulation.setEraYear( year );
-			
-			while( simulation.getEraYear().equals( year ) ) {
+			for(var the_month : engine.getListOfMonthsInTheYear( year )) {
 				a_month.reset();
 				
-				a_month.setContent( "month.name", simulation.getMonthName() );
-				a_month.setContent( "week.length", String.valueOf(simulation.getWeekLength()) );
-				switch( simulation.getMonthFeature() ) {
+				a_month.setContent( "month.name", the_month.name() );
+				a_month.setContent( "week.length", String.valueOf(engine.getWeekLength()) );
+				switch( the_month.feature() ) {
 					case NONE -> a_month.setContent( "month.type", " normal-month" );
 					case LEAP -> a_month.setContent( "month.type", " leap-month" );
 					case EPAGOMENAL -> a_month.setContent( "month.type", " epagomenal-month" );
 				}
 				
-				for(var weeks_list : simulation.getListOfDaysInTheMonth()) {
+				for(var weeks_list : the_month.weeks()) {
 					a_week.reset();
 					for(var one_day : weeks_list) {
 						a_day.reset();
@@ -144,7 +142,6 @@ public class SimulationWriter {
 				}
 				
 				a_year.addContent( "year.content", a_month.getResult() );
-				simulation.gotoNextMonth();
 			}
 			
 			root.addContent( "calendar.body", a_year.getResult() );
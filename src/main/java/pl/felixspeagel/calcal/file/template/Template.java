@@ -16,26 +16,28 @@ public class Template {
 		fields = new HashMap<>();
 	}
 	
-	private final Map<String, String> fields;
+	//added content grows in place, instead of copying everything added so far
+	private final Map<String, StringBuilder> fields;
 	
 	public void setContent(String of_field, String content) {
-		fields.put( of_field, content );
+		fields.put( of_field, new StringBuilder( content ) );
 	}
 	public void setContent(String of_field, Color content) {
 		String str = "#";
 		str = str + String.format( "%02X", content.getRed() );
 		str = str + String.format( "%02X", content.getGreen() );
 		str = str + String.format( "%02X", content.getBlue() );
-		fields.put( of_field, str );
+		setContent( of_field, str );
 	}
 	public void clearContent(String of_field) {
-		fields.put( of_field, "" );
+		fields.put( of_field, new StringBuilder() );
 	}
 	public void addContent(String of_field, String content) {
-		if( fields.containsKey( of_field ) ) {
-			fields.put( of_field, fields.get( of_field ) + content );
+		var field = fields.get( of_field );
+		if( field != null ) {
+			field.append( content );
 		} else {
-			fields.put( of_field, content );
+			setContent( of_field, content );
 		}
 	}
 	public void reset() {
@@ -0,0 +1,133 @@
+package pl.felixspeagel.calcal.math;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Continued fraction expansion of a fraction and the rational approximations which come out of it.
+ * <p>
+ * The convergents p/q are the best approximations of their size; between two of them lie
+ * the semiconvergents, which are the mediants visited when walking down the Stern–Brocot tree.
+ */
+public class ContinuedFraction {
+	
+	/**
+	 * Computes the terms [a0; a1, a2, ...] of the expansion.
+	 * @param value the fraction to expand
+	 * @return the terms; only a0 can be negative or zero
+	 */
+	public static List<BigInteger> terms(MixedFraction value) {
+		var result = new ArrayList<BigInteger>();
+		var denominator = value.getDenominator();
+		// integer part and numerator share the sign
+		var numerator = value.getInteger().multiply( denominator ).add( value.getNumerator() );
+		
+		// the first term is the floor, the rest is Euclid's algorithm
+		var division = numerator.divideAndRemainder( denominator );
+		var term = division[1].signum() < 0 ? division[0].subtract( BigInteger.ONE ) : division[0];
+		result.add( term );
+		numerator = numerator.subtract( term.multiply( denominator ) );
+		while( numerator.signum() != 0 ) {
+			var t = denominator;
+			denominator = numerator;
+			numerator = t;
+			division = numerator.divideAndRemainder( denominator );
+			result.add( division[0] );
+			numerator = division[1];
+		}
+		return result;
+	}
+	
+	/**
+	 * Finds the closest fraction to the value whose denominator doesn't exceed the bound.
+	 * <p>
+	 * It follows the convergents until the next one would be too big, then checks
+	 * the largest semiconvergent which still fits against the last convergent.
+	 * @param value the fraction to approximate
+	 * @param max_denominator the bound, at least 1
+	 * @return the best approximation, the value itself if its denominator is small enough
+	 */
+	public static MixedFraction bestApproximation(MixedFraction value, BigInteger max_denominator) {
+		if( max_denominator.signum() <= 0 ) {
+			throw new ArithmeticException("Denominator bound must be positive.");
+		}
+		if( value.getDenominator().compareTo( max_denominator ) <= 0 ) {
+			return value;
+		}
+		
+		// p1/q1 is the last convergent, p0/q0 the one before it
+		var p0 = BigInteger.ZERO;
+		var q0 = BigInteger.ONE;
+		var p1 = BigInteger.ONE;
+		var q1 = BigInteger.ZERO;
+		for(var term : terms( value )) {
+			var q2 = term.multiply( q1 ).add( q0 );
+			if( q2.compareTo( max_denominator ) > 0 ) {
+				// the biggest semiconvergent (p0 + t*p1) / (q0 + t*q1) under the bound
+				var t = max_denominator.subtract( q0 ).divide( q1 );
+				var convergent = new MixedFraction( p1, q1 );
+				var semiconvergent = new MixedFraction( t.multiply( p1 ).add( p0 ), t.multiply( q1 ).add( q0 ) );
+				var convergent_error = convergent.subtract( value ).abs();
+				var semiconvergent_error = semiconvergent.subtract( value ).abs();
+				return semiconvergent_error.compareTo( convergent_error ) < 0 ? semiconvergent : convergent;
+			}
+			var p2 = term.multiply( p1 ).add( p0 );
+			p0 = p1;
+			q0 = q1;
+			p1 = p2;
+			q1 = q2;
+		}
+		// not reached, the last convergent is the value itself
+		return value;
+	}
+	
+	/**
+	 * A convergent or a semiconvergent of a value.
+	 * @param numerator p of p/q
+	 * @param denominator q of p/q, positive
+	 * @param convergent false for a semiconvergent
+	 */
+	public record Approximation(BigInteger numerator, BigInteger denominator, boolean convergent) {
+		public MixedFraction toMixedFraction() {
+			return new MixedFraction( numerator, denominator );
+		}
+	}
+	
+	/**
+	 * Lists the convergents of a value, and before each of them the middle semiconvergent
+	 * (p0 + t*p1) / (q0 + t*q1) with t = ⌈a/2⌉, the first one which can be a best approximation.
+	 * <p>
+	 * That's at most two fractions per term, so the list is as short as the expansion.
+	 * @param value the fraction to approximate
+	 * @param max_denominator no fraction with a bigger denominator is listed
+	 * @return the approximations ordered by the denominator (the first two can share 1), ending with the value itself if it fits
+	 */
+	public static List<Approximation> approximations(MixedFraction value, BigInteger max_denominator) {
+		var result = new ArrayList<Approximation>();
+		var p0 = BigInteger.ZERO;
+		var q0 = BigInteger.ONE;
+		var p1 = BigInteger.ONE;
+		var q1 = BigInteger.ZERO;
+		for(var term : terms( value )) {
+			// no semiconvergent before the first convergent
+			if( q1.signum() > 0 ) {
+				var t = term.add( BigInteger.ONE ).shiftRight( 1 );
+				if( t.compareTo( term ) < 0 ) {
+					var q = t.multiply( q1 ).add( q0 );
+					if( q.compareTo( max_denominator ) > 0 ) break;
+					result.add( new Approximation( t.multiply( p1 ).add( p0 ), q, false ) );
+				}
+			}
+			var q2 = term.multiply( q1 ).add( q0 );
+			if( q2.compareTo( max_denominator ) > 0 ) break;
+			var p2 = term.multiply( p1 ).add( p0 );
+			result.add( new Approximation( p2, q2, true ) );
+			p0 = p1;
+			q0 = q1;
+			p1 = p2;
+			q1 = q2;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,302 @@
+package pl.felixspeagel.calcal.math;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Integer factorization: trial division by a cached table of small primes,
+ * Miller–Rabin primality test and Pollard–Rho (Brent's variant) for what remains.
+ */
+public class Factorization {
+	
+	/**
+	 * Trial division goes up to this number. Whatever is left below its square is a prime.
+	 */
+	private static final int SIEVE_LIMIT = 1 << 16;
+	private static final int[] SMALL_PRIMES = sieve( SIEVE_LIMIT );
+	private static final BigInteger SIEVE_LIMIT_SQUARED = BigInteger.valueOf( (long) SIEVE_LIMIT * SIEVE_LIMIT );
+	
+	/**
+	 * Miller–Rabin with the first 13 primes as bases gives no false positives below this number.
+	 */
+	private static final BigInteger DETERMINISTIC_LIMIT = new BigInteger( "3317044064679887385961981" );
+	private static final int[] WITNESSES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41};
+	
+	private static int[] sieve(int limit) {
+		var composite = new boolean[limit];
+		int count = 0;
+		for(int i=2; i<limit; i++) {
+			if( ! composite[i] ) {
+				count++;
+				for(long j=(long) i*i; j<limit; j+=i) {
+					composite[(int) j] = true;
+				}
+			}
+		}
+		var primes = new int[count];
+		int index = 0;
+		for(int i=2; i<limit; i++) {
+			if( ! composite[i] ) {
+				primes[index++] = i;
+			}
+		}
+		return primes;
+	}
+	
+	/**
+	 * Factors a number into primes.
+	 * @param number a non-zero number, the sign is ignored
+	 * @return prime factors with their exponents, in ascending order; empty for 1
+	 * @throws ArithmeticException for zero
+	 */
+	public static TreeMap<BigInteger, Integer> primeFactors(BigInteger number) {
+		if( number.signum() == 0 ) {
+			throw new ArithmeticException("Zero has no prime factors.");
+		}
+		var factors = new TreeMap<BigInteger, Integer>();
+		var rest = trialDivision( number.abs(), factors );
+		
+		if( rest.equals( BigInteger.ONE ) ) {
+			return factors;
+		}
+		if( rest.compareTo( SIEVE_LIMIT_SQUARED ) < 0 ) {
+			// no factor below the square root
+			factors.merge( rest, 1, Integer::sum );
+			return factors;
+		}
+		
+		var to_split = new ArrayDeque<BigInteger>();
+		to_split.push( rest );
+		while( ! to_split.isEmpty() ) {
+			var part = to_split.pop();
+			if( isPrime( part ) ) {
+				factors.merge( part, 1, Integer::sum );
+			} else {
+				var divisor = pollardRho( part );
+				to_split.push( divisor );
+				to_split.push( part.divide( divisor ) );
+			}
+		}
+		return factors;
+	}
+	
+	/**
+	 * Divides out all small primes, puts them into factors and returns what is left.
+	 */
+	private static BigInteger trialDivision(BigInteger number, TreeMap<BigInteger, Integer> factors) {
+		if( number.bitLength() < 64 ) {
+			long rest = number.longValue();
+			for(int prime : SMALL_PRIMES) {
+				if( (long) prime * prime > rest ) break;
+				if( rest % prime == 0 ) {
+					int exponent = 0;
+					do {
+						rest /= prime;
+						exponent++;
+					} while( rest % prime == 0 );
+					factors.put( BigInteger.valueOf( prime ), exponent );
+				}
+			}
+			return BigInteger.valueOf( rest );
+		}
+		
+		var rest = number;
+		for(int prime : SMALL_PRIMES) {
+			var big_prime = BigInteger.valueOf( prime );
+			var division = rest.divideAndRemainder( big_prime );
+			if( division[1].signum() == 0 ) {
+				int exponent = 0;
+				do {
+					rest = division[0];
+					exponent++;
+					division = rest.divideAndRemainder( big_prime );
+				} while( division[1].signum() == 0 );
+				factors.put( big_prime, exponent );
+				if( rest.bitLength() < 64 ) {
+					return trialDivision( rest, factors );
+				}
+			}
+		}
+		return rest;
+	}
+	
+	/**
+	 * Miller–Rabin primality test. Deterministic below 3.3 * 10^24,
+	 * with a negligible error probability above that.
+	 */
+	public static boolean isPrime(BigInteger number) {
+		if( number.compareTo( BigInteger.TWO ) < 0 ) {
+			return false;
+		}
+		if( number.bitLength() < 32 ) {
+			int small = number.intValue();
+			for(int prime : SMALL_PRIMES) {
+				if( (long) prime * prime > small ) return true;
+				if( small % prime == 0 ) return false;
+			}
+			return true;
+		}
+		for(int prime : WITNESSES) {
+			if( number.mod( BigInteger.valueOf( prime ) ).signum() == 0 ) {
+				return false;
+			}
+		}
+		
+		// number - 1 = d * 2^s
+		var number_minus_one = number.subtract( BigInteger.ONE );
+		int s = number_minus_one.getLowestSetBit();
+		var d = number_minus_one.shiftRight( s );
+		
+		for(int witness : WITNESSES) {
+			var x = BigInteger.valueOf( witness ).modPow( d, number );
+			if( x.equals( BigInteger.ONE ) || x.equals( number_minus_one ) ) {
+				continue;
+			}
+			boolean composite = true;
+			for(int r=1; r<s; r++) {
+				x = x.multiply( x ).mod( number );
+				if( x.equals( number_minus_one ) ) {
+					composite = false;
+					break;
+				}
+			}
+			if( composite ) {
+				return false;
+			}
+		}
+		
+		if( number.compareTo( DETERMINISTIC_LIMIT ) < 0 ) {
+			return true;
+		}
+		return number.isProbablePrime( 64 );
+	}
+	
+	/**
+	 * Finds a non-trivial divisor of a composite number with Brent's variant of Pollard–Rho.
+	 */
+	private static BigInteger pollardRho(BigInteger number) {
+		if( ! number.testBit( 0 ) ) {
+			return BigInteger.TWO;
+		}
+		final int batch = 128;
+		
+		for(long c=1; ; c++) {
+			var increment = BigInteger.valueOf( c );
+			var y = BigInteger.TWO;
+			var x = y;
+			var saved_y = y;
+			var product = BigInteger.ONE;
+			var divisor = BigInteger.ONE;
+			
+			for(long r=1; divisor.equals( BigInteger.ONE ); r*=2) {
+				x = y;
+				for(long i=0; i<r; i++) {
+					y = y.multiply( y ).add( increment ).mod( number );
+				}
+				for(long k=0; k<r && divisor.equals( BigInteger.ONE ); k+=batch) {
+					saved_y = y;
+					for(long i=0; i<Math.min( batch, r-k ); i++) {
+						y = y.multiply( y ).add( increment ).mod( number );
+						product = product.multiply( x.subtract( y ).abs() ).mod( number );
+					}
+					divisor = Functions.gcd( product, number );
+				}
+			}
+			
+			if( divisor.equals( number ) ) {
+				// the batch overshot, go back one step at a time
+				do {
+					saved_y = saved_y.multiply( saved_y ).add( increment ).mod( number );
+					divisor = Functions.gcd( x.subtract( saved_y ).abs(), number );
+				} while( divisor.equals( BigInteger.ONE ) );
+			}
+			if( ! divisor.equals( number ) ) {
+				return divisor;
+			}
+			//unlucky constant, try the next one
+		}
+	}
+	
+	/**
+	 * Computes the multiplicative order of base modulo modulus, i.e. the smallest k > 0
+	 * such that base^k ≡ 1 (mod modulus).
+	 * <p>
+	 * The order divides Euler's totient, so it starts from the totient
+	 * and divides out its prime factors as long as the power stays 1.
+	 * @param base a number coprime to the modulus
+	 * @param modulus a number > 1
+	 * @return the order
+	 * @throws ArithmeticException if base and modulus aren't coprime
+	 */
+	public static BigInteger multiplicativeOrder(BigInteger base, BigInteger modulus) {
+		if( ! Functions.gcd( base, modulus ).equals( BigInteger.ONE ) ) {
+			throw new ArithmeticException("Base and modulus must be coprime.");
+		}
+		// totient and its factorization from the factorization of the modulus
+		var totient = BigInteger.ONE;
+		var totient_factors = new TreeMap<BigInteger, Integer>();
+		for(var factor : primeFactors( modulus ).entrySet()) {
+			var prime = factor.getKey();
+			var prime_minus_one = prime.subtract( BigInteger.ONE );
+			totient = totient.multiply( prime.pow( factor.getValue() - 1 ) ).multiply( prime_minus_one );
+			if( factor.getValue() > 1 ) {
+				totient_factors.merge( prime, factor.getValue() - 1, Integer::sum );
+			}
+			if( prime_minus_one.compareTo( BigInteger.ONE ) > 0 ) {
+				for(var sub_factor : primeFactors( prime_minus_one ).entrySet()) {
+					totient_factors.merge( sub_factor.getKey(), sub_factor.getValue(), Integer::sum );
+				}
+			}
+		}
+		
+		var order = totient;
+		for(var factor : totient_factors.entrySet()) {
+			for(int e=0; e<factor.getValue(); e++) {
+				var candidate = order.divide( factor.getKey() );
+				if( ! base.modPow( candidate, modulus ).equals( BigInteger.ONE ) ) {
+					break;
+				}
+				order = candidate;
+			}
+		}
+		return order;
+	}
+	
+	/**
+	 * Lists all divisors of a number.
+	 * @param number the number, the sign is ignored
+	 * @return positive divisors in ascending order; empty for zero
+	 */
+	public static BigInteger[] divisors(BigInteger number) {
+		if( number.signum() == 0 ) {
+			return new BigInteger[0];
+		}
+		var factors = primeFactors( number );
+		
+		int count = 1;
+		for(int exponent : factors.values()) {
+			count = Math.multiplyExact( count, exponent + 1 );
+		}
+		
+		var result = new BigInteger[count];
+		result[0] = BigInteger.ONE;
+		int filled = 1;
+		for(Map.Entry<BigInteger, Integer> factor : factors.entrySet()) {
+			// multiply every divisor found so far by each power of this prime
+			int previous = filled;
+			var power = BigInteger.ONE;
+			for(int e=1; e<=factor.getValue(); e++) {
+				power = power.multiply( factor.getKey() );
+				for(int i=0; i<previous; i++) {
+					result[filled++] = result[i].multiply( power );
+				}
+			}
+		}
+		
+		Arrays.sort( result );
+		return result;
+	}
+}
@@ -0,0 +1,257 @@
+package pl.felixspeagel.calcal.math;
+
+import java.math.BigInteger;
+
+/**
+ * A mutable sum for loops which keep adding to the same value.
+ * <p>
+ * Unlike {@link MixedFraction} the sum isn't reduced after every step:
+ * when the added fractions share a denominator, adding is a single
+ * {@code long} operation. The sum is reduced only when it's read or when it
+ * would overflow. Every value read from it is exactly the same as the one
+ * a chain of {@code MixedFraction.add} calls would give.
+ */
+public class FractionAccumulator {
+	private long numerator;
+	private long denominator;
+	// used instead of the longs when the sum doesn't fit into them
+	private BigInteger big_numerator;
+	private BigInteger big_denominator;
+	private boolean reduced;
+	
+	public FractionAccumulator() {
+		this( MixedFraction.ZERO );
+	}
+	
+	public FractionAccumulator(MixedFraction start) {
+		set( start );
+	}
+	
+	public FractionAccumulator set(MixedFraction value) {
+		if( ! value.fitsInLongs() ) {
+			value = value.reduced();
+		}
+		if( value.fitsInLongs() ) {
+			numerator = value.longNumerator();
+			denominator = value.longDenominator();
+			big_numerator = null;
+			big_denominator = null;
+			reduced = value.isReduced();
+		} else {
+			big_numerator = value.getTrueNumerator();
+			big_denominator = value.getDenominator();
+			reduced = true;
+		}
+		return this;
+	}
+	
+	private boolean isSmall() {
+		return big_numerator == null;
+	}
+	
+	public FractionAccumulator add(MixedFraction other) {
+		if( other.fitsInLongs() ) {
+			return add( other.longNumerator(), other.longDenominator() );
+		}
+		addBig( other.getTrueNumerator(), other.getDenominator() );
+		return this;
+	}
+	
+	public FractionAccumulator subtract(MixedFraction other) {
+		if( other.fitsInLongs() ) {
+			// the long form of a MixedFraction is never Long.MIN_VALUE, so it can be negated
+			return add( -other.longNumerator(), other.longDenominator() );
+		}
+		addBig( other.getTrueNumerator().negate(), other.getDenominator() );
+		return this;
+	}
+	
+	public FractionAccumulator add(long integer) {
+		if( isSmall() ) {
+			try {
+				var new_numerator = Math.addExact( numerator, Math.multiplyExact( integer, denominator ) );
+				if( new_numerator != Long.MIN_VALUE ) {
+					// adding an integer doesn't change the common divisors
+					numerator = new_numerator;
+					return this;
+				}
+			} catch( ArithmeticException overflow ) {
+				//fall back to BigIntegers
+			}
+			promote();
+		}
+		big_numerator = big_numerator.add( big_denominator.multiply( BigInteger.valueOf( integer ) ) );
+		return this;
+	}
+	
+	public FractionAccumulator add(BigInteger integer) {
+		if( integer.bitLength() < 63 ) {
+			return add( integer.longValue() );
+		}
+		if( isSmall() ) {
+			promote();
+		}
+		big_numerator = big_numerator.add( big_denominator.multiply( integer ) );
+		return this;
+	}
+	
+	public FractionAccumulator subtract(BigInteger integer) {
+		return add( integer.negate() );
+	}
+	
+	private FractionAccumulator add(long n, long d) {
+		if( isSmall() ) {
+			if( addSmall( n, d ) ) {
+				return this;
+			}
+			// a reduced sum may still fit
+			normalize();
+			if( addSmall( n, d ) ) {
+				return this;
+			}
+			promote();
+		}
+		addBig( BigInteger.valueOf( n ), BigInteger.valueOf( d ) );
+		return this;
+	}
+	
+	private boolean addSmall(long n, long d) {
+		long new_numerator, new_denominator;
+		try {
+			if( d == denominator ) {
+				new_numerator = Math.addExact( numerator, n );
+				new_denominator = denominator;
+			} else if( denominator % d == 0 ) {
+				new_numerator = Math.addExact( numerator, Math.multiplyExact( n, denominator / d ) );
+				new_denominator = denominator;
+			} else {
+				new_numerator = Math.addExact(
+						Math.multiplyExact( numerator, d ),
+						Math.multiplyExact( n, denominator )
+				);
+				new_denominator = Math.multiplyExact( denominator, d );
+			}
+		} catch( ArithmeticException overflow ) {
+			return false;
+		}
+		if( new_numerator == Long.MIN_VALUE ) {
+			return false;
+		}
+		numerator = new_numerator;
+		denominator = new_denominator;
+		reduced = reduced && d == 1;
+		return true;
+	}
+	
+	private void addBig(BigInteger n, BigInteger d) {
+		if( isSmall() ) {
+			promote();
+		}
+		if( big_denominator.equals( d ) ) {
+			big_numerator = big_numerator.add( n );
+		} else {
+			big_numerator = big_numerator.multiply( d ).add( n.multiply( big_denominator ) );
+			big_denominator = big_denominator.multiply( d );
+		}
+		// BigIntegers only grow, so keep them reduced
+		var gcd = Functions.gcd( big_numerator, big_denominator );
+		if( ! gcd.equals( BigInteger.ONE ) ) {
+			big_numerator = big_numerator.divide( gcd );
+			big_denominator = big_denominator.divide( gcd );
+		}
+		reduced = true;
+		if( big_numerator.bitLength() < 63 && big_denominator.bitLength() < 63 ) {
+			numerator = big_numerator.longValue();
+			denominator = big_denominator.longValue();
+			big_numerator = null;
+			big_denominator = null;
+		}
+	}
+	
+	private void promote() {
+		normalize();
+		big_numerator = BigInteger.valueOf( numerator );
+		big_denominator = BigInteger.valueOf( denominator );
+	}
+	
+	private void normalize() {
+		if( reduced ) return;
+		
+		if( isSmall() ) {
+			long gcd = Functions.gcd( numerator, denominator );
+			if( gcd > 1 ) {
+				numerator /= gcd;
+				denominator /= gcd;
+			}
+		}
+		reduced = true;
+	}
+	
+	/**
+	 * Compares the current sum with a value.
+	 */
+	public int compareTo(MixedFraction other) {
+		if( isSmall() && other.fitsInLongs() ) {
+			return MixedFraction.compareProducts(
+					numerator, other.longDenominator(),
+					other.longNumerator(), denominator
+			);
+		}
+		var n1 = getTrueNumerator().multiply( other.getDenominator() );
+		var n2 = other.getTrueNumerator().multiply( getTrueDenominator() );
+		return n1.compareTo( n2 );
+	}
+	
+	public boolean isNegative() {
+		return isSmall() ? numerator < 0 : big_numerator.signum() < 0;
+	}
+	
+	private BigInteger getTrueNumerator() {
+		return isSmall() ? BigInteger.valueOf( numerator ) : big_numerator;
+	}
+	
+	private BigInteger getTrueDenominator() {
+		return isSmall() ? BigInteger.valueOf( denominator ) : big_denominator;
+	}
+	
+	/**
+	 * @return the integer part, like {@link MixedFraction#getInteger()}
+	 */
+	public BigInteger getInteger() {
+		if( isSmall() ) {
+			return BigInteger.valueOf( numerator / denominator );
+		}
+		return big_numerator.divide( big_denominator );
+	}
+	
+	/**
+	 * @return the fraction part, like {@link MixedFraction#getFraction()}
+	 */
+	public MixedFraction getFraction() {
+		if( isSmall() ) {
+			if( reduced ) {
+				return MixedFraction.ofReduced( numerator % denominator, denominator );
+			}
+			return MixedFraction.of( numerator % denominator, denominator );
+		}
+		return MixedFraction.ofReduced( big_numerator.remainder( big_denominator ), big_denominator );
+	}
+	
+	/**
+	 * @return the current sum as an immutable fraction
+	 */
+	public MixedFraction toMixedFraction() {
+		if( isSmall() ) {
+			if( reduced ) {
+				return MixedFraction.ofReduced( numerator, denominator );
+			}
+			return MixedFraction.of( numerator, denominator );
+		}
+		return MixedFraction.ofReduced( big_numerator, big_denominator );
+	}
+	
+	@Override
+	public String toString() {
+		return toMixedFraction().toString();
+	}
+}
@@ -1,55 +1,86 @@
 package pl.felixspeagel.calcal.math;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.LinkedList;
 
 /**
  * Common mathematical functions
  */
 public class Functions {
 	
+	/**
+	 * Above this size {@link BigInteger#gcd(BigInteger)} beats the Euclid steps.
+	 */
+	private static final int HUGE_GCD_BITS = 1024;
+	
 	/**
 	 * Computes The Greatest Common Divisor
+	 * <p>
+	 * Numbers which fit into a long go through the binary algorithm of {@link #gcd(long, long)}.
+	 * Bigger ones make Euclid steps until they fit into a long, and really huge ones
+	 * go to {@link BigInteger#gcd(BigInteger)}.
 	 * @param a first BigInteger
 	 * @param b second BigInteger
 	 * @return A BigInteger >= 0
 	 */
 	public static BigInteger gcd(BigInteger a, BigInteger b) {
-		if( a.compareTo( BigInteger.ZERO) < 0) { // a < 0
-			a = a.multiply( BigInteger.valueOf( -1 ) ); // a *= -1
+		if( a.bitLength() < 63 && b.bitLength() < 63 ) {
+			return BigInteger.valueOf( gcd( a.longValue(), b.longValue() ) );
 		}
-		if( b.compareTo( BigInteger.ZERO ) < 0 ) { // b < 0
-			b = b.multiply( BigInteger.valueOf( -1 ) ); // b *= -1
+		if( a.bitLength() > HUGE_GCD_BITS || b.bitLength() > HUGE_GCD_BITS ) {
+			return a.gcd( b );
 		}
 		
+		a = a.abs();
+		b = b.abs();
 		BigInteger t;
-		while(!b.equals( BigInteger.ZERO )) { // b != 0
+		while( b.bitLength() >= 63 ) {
 			t = b;
 			b = a.mod( b );
 			a = t;
 		}
-		return a;
+		if( b.signum() == 0 ) {
+			return a;
+		}
+		// b fits into a long, and so does a mod b
+		return BigInteger.valueOf( gcd( b.longValue(), a.mod( b ).longValue() ) );
 	}
 	
-	public static BigInteger[] divisors_of(BigInteger number) {
-		number = number.abs();
-		var i = BigInteger.ONE;
-		final var sqrt = BigDecimal.valueOf( Math.sqrt( number.doubleValue() ) ).toBigInteger();
-		var divisors = new LinkedList<BigInteger>();
-		
-		while( i.compareTo( sqrt ) <= 0 ) {
-			if( number.remainder( i ).equals( BigInteger.ZERO ) ) {
-				if( number.divide( i ).equals( i ) ) {
-					divisors.add( i );
-				} else {
-					divisors.add( i );
-					divisors.add( number.divide( i ) );
-				}
-			}
-			i = i.add( BigInteger.ONE );
+	/**
+	 * Computes The Greatest Common Divisor of two longs with the binary (Stein's) algorithm
+	 * @param a first long
+	 * @param b second long
+	 * @return A long >= 0
+	 * @throws ArithmeticException if the result is 2^63, i.e. it doesn't fit into a long
+	 */
+	public static long gcd(long a, long b) {
+		if( a == Long.MIN_VALUE || b == Long.MIN_VALUE ) {
+			return BigInteger.valueOf( a ).gcd( BigInteger.valueOf( b ) ).longValueExact();
 		}
+		a = Math.abs( a );
+		b = Math.abs( b );
+		if( a == 0 ) return b;
+		if( b == 0 ) return a;
 		
-		return divisors.stream().sorted().toArray( BigInteger[]::new );
+		int shift = Long.numberOfTrailingZeros( a | b );
+		a >>= Long.numberOfTrailingZeros( a );
+		do {
+			b >>= Long.numberOfTrailingZeros( b );
+			// a = min(a, b), b = |b - a| without a branch
+			long difference = b - a;
+			long mask = difference >> 63; // all ones if b < a
+			a += difference & mask;
+			b = ( difference ^ mask ) - mask;
+		} while( b != 0 );
+		return a << shift;
+	}
+	
+	/**
+	 * Lists all divisors of a number, built from its prime factorization
+	 * @param number the number, the sign is ignored
+	 * @return positive divisors in ascending order; empty for zero
+	 * @see Factorization#divisors(BigInteger)
+	 */
+	public static BigInteger[] divisors_of(BigInteger number) {
+		return Factorization.divisors( number );
 	}
 }
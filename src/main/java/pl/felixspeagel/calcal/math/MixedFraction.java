@@ -4,12 +4,27 @@ import java.math.BigInteger;
 
 /**
  * Mixed Fraction — a number with an integer and a fraction part
+ * <p>
+ * Values which fit into 64 bits are kept in {@code long} fields and the
+ * {@code BigInteger} fields stay {@code null}. An operation which overflows
+ * a {@code long} silently promotes its result to the {@code BigInteger} form.
+ * <p>
+ * Results of arithmetic aren't reduced right away. The reduced form is computed
+ * (once) only when something depends on it: equality, hash, text or the getters
+ * of the numerator and denominator.
  */
 public class MixedFraction implements Comparable<MixedFraction> {
+	private final long small_numerator;
+	private final long small_denominator;
 	private final BigInteger numerator;
 	private final BigInteger denominator;
 	
-	private static final BigInteger minusOne = BigInteger.valueOf( -1 );
+	// Caches. They are filled on first use and every thread computes the same
+	// values, so a race only means computing them twice.
+	private MixedFraction normal_form;
+	private int hash;
+	private BigInteger integer_part;
+	private MixedFraction fraction_part;
 	
 	public static final MixedFraction ZERO = new MixedFraction( BigInteger.ZERO, BigInteger.ZERO, BigInteger.ONE );
 	public static final MixedFraction ONE = new MixedFraction( BigInteger.ONE, BigInteger.ZERO, BigInteger.ONE );
@@ -39,8 +54,23 @@ public class MixedFraction implements Comparable<MixedFraction> {
 		n = n.divide( gcd );
 		d = d.divide( gcd );
 		
-		numerator = n.add(i.abs().multiply( d )).multiply( integerIsNegative ? minusOne : BigInteger.ONE );
-		denominator = d;
+		var value = n.add( i.abs().multiply( d ) );
+		if( integerIsNegative ) {
+			value = value.negate();
+		}
+		
+		if( fitsInLong( value ) && fitsInLong( d ) ) {
+			small_numerator = value.longValue();
+			small_denominator = d.longValue();
+			numerator = null;
+			denominator = null;
+		} else {
+			small_numerator = 0;
+			small_denominator = 0;
+			numerator = value;
+			denominator = d;
+		}
+		normal_form = this;
 	}
 	
 	public MixedFraction(BigInteger i) {
@@ -52,100 +82,439 @@ public class MixedFraction implements Comparable<MixedFraction> {
 	}
 	
 	public MixedFraction(int i, int n, int d) {
-		this( BigInteger.valueOf( i ), BigInteger.valueOf( n ), BigInteger.valueOf( d ) );
+		if( d == 0 ) {
+			throw new ArithmeticException("Denominator can't be equal zero.");
+		}
+		// an int can't overflow a long in any of the steps below
+		long li = i, ln = n, ld = d;
+		boolean integerIsNegative = li < 0;
+		
+		if( ld < 0 ) {
+			ln = -ln;
+			ld = -ld;
+		}
+		
+		if( li != 0 && ln < 0 ) {
+			li = -li;
+			integerIsNegative = ! integerIsNegative;
+			ln = -ln;
+		}
+		
+		long gcd = Functions.gcd( ln, ld );
+		ln /= gcd;
+		ld /= gcd;
+		
+		long value = ln + Math.abs( li ) * ld;
+		small_numerator = integerIsNegative ? -value : value;
+		small_denominator = ld;
+		numerator = null;
+		denominator = null;
+		normal_form = this;
 	}
 	public MixedFraction(int i) {
-		this( BigInteger.valueOf( i ) );
+		this( i, 0, 1 );
 	}
 	public MixedFraction(int n, int d) {
-		this( BigInteger.valueOf( n ), BigInteger.valueOf( d ) );
+		this( 0, n, d );
+	}
+	
+	/**
+	 * Raw constructor. Exactly one pair of the arguments is used:
+	 * the BigIntegers if they aren't {@code null}, the longs otherwise.
+	 * The denominator must be positive.
+	 */
+	private MixedFraction(long n, long d, BigInteger big_n, BigInteger big_d, boolean is_reduced) {
+		small_numerator = n;
+		small_denominator = d;
+		numerator = big_n;
+		denominator = big_d;
+		normal_form = is_reduced ? this : null;
+	}
+	
+	/**
+	 * Is the number representable in the long form?
+	 * {@code Long.MIN_VALUE} is excluded, so the long form can always be negated.
+	 */
+	private static boolean fitsInLong(BigInteger number) {
+		return number.bitLength() < 64 && number.longValue() != Long.MIN_VALUE;
+	}
+	
+	/**
+	 * Creates a not reduced fraction out of a numerator and denominator.
+	 */
+	private static MixedFraction fromLongs(long n, long d) {
+		if( d == 0 ) {
+			throw new ArithmeticException("Denominator can't be equal zero.");
+		}
+		if( n == Long.MIN_VALUE || d == Long.MIN_VALUE ) {
+			return fromBigIntegers( BigInteger.valueOf( n ), BigInteger.valueOf( d ) );
+		}
+		if( d < 0 ) {
+			n = -n;
+			d = -d;
+		}
+		return new MixedFraction( n, d, null, null, false );
 	}
 	
-	public BigInteger getInteger() {
-		if( ! hasIntegerPart() ) { // n < d
-			return BigInteger.ZERO;
+	/**
+	 * Creates a not reduced fraction out of a numerator and denominator.
+	 */
+	private static MixedFraction fromBigIntegers(BigInteger n, BigInteger d) {
+		if( d.signum() == 0 ) {
+			throw new ArithmeticException("Denominator can't be equal zero.");
+		}
+		if( d.signum() < 0 ) {
+			n = n.negate();
+			d = d.negate();
+		}
+		if( fitsInLong( n ) && fitsInLong( d ) ) {
+			return new MixedFraction( n.longValue(), d.longValue(), null, null, false );
+		} else {
+			return new MixedFraction( 0, 0, n, d, false );
+		}
+	}
+	
+	/**
+	 * Picks the right form for an already reduced fraction with a positive denominator.
+	 */
+	private static MixedFraction fromReduced(BigInteger n, BigInteger d) {
+		if( fitsInLong( n ) && fitsInLong( d ) ) {
+			return new MixedFraction( n.longValue(), d.longValue(), null, null, true );
 		} else {
-			return numerator.divide( denominator );
+			return new MixedFraction( 0, 0, n, d, true );
+		}
+	}
+	
+	/**
+	 * @return the reduced form of this fraction, which is this object if it's already reduced
+	 */
+	private MixedFraction normal() {
+		var result = normal_form;
+		if( result != null ) {
+			return result;
+		}
+		
+		if( isSmall() ) {
+			long gcd = Functions.gcd( small_numerator, small_denominator );
+			result = new MixedFraction( small_numerator / gcd, small_denominator / gcd, null, null, true );
+		} else {
+			var gcd = Functions.gcd( numerator, denominator );
+			result = fromReduced( numerator.divide( gcd ), denominator.divide( gcd ) );
+		}
+		normal_form = result;
+		return result;
+	}
+	
+	private boolean isNormal() {
+		return normal_form == this;
+	}
+	
+	private boolean isSmall() {
+		return numerator == null;
+	}
+	
+	// package-private access to the long form, for FractionAccumulator
+	
+	boolean fitsInLongs() {
+		return isSmall();
+	}
+	
+	boolean isReduced() {
+		return isNormal();
+	}
+	
+	MixedFraction reduced() {
+		return normal();
+	}
+	
+	long longNumerator() {
+		return small_numerator;
+	}
+	
+	long longDenominator() {
+		return small_denominator;
+	}
+	
+	static MixedFraction of(long n, long d) {
+		return fromLongs( n, d );
+	}
+	
+	static MixedFraction of(BigInteger n, BigInteger d) {
+		return fromBigIntegers( n, d );
+	}
+	
+	static MixedFraction ofReduced(long n, long d) {
+		if( n == Long.MIN_VALUE ) {
+			return fromReduced( BigInteger.valueOf( n ), BigInteger.valueOf( d ) );
+		}
+		return new MixedFraction( n, d, null, null, true );
+	}
+	
+	static MixedFraction ofReduced(BigInteger n, BigInteger d) {
+		return fromReduced( n, d );
+	}
+	
+	private BigInteger bigNumerator() {
+		return isSmall() ? BigInteger.valueOf( small_numerator ) : numerator;
+	}
+	
+	private BigInteger bigDenominator() {
+		return isSmall() ? BigInteger.valueOf( small_denominator ) : denominator;
+	}
+	
+	public BigInteger getInteger() {
+		// the truncated quotient doesn't depend on the fraction being reduced
+		var result = integer_part;
+		if( result == null ) {
+			if( isSmall() ) {
+				result = BigInteger.valueOf( small_numerator / small_denominator );
+			} else if( ! hasIntegerPart() ) { // n < d
+				result = BigInteger.ZERO;
+			} else {
+				result = numerator.divide( denominator );
+			}
+			integer_part = result;
 		}
+		return result;
 	}
 	
 	public MixedFraction getFraction() {
-		return this.subtract( new MixedFraction( this.getInteger() ) );
+		var result = fraction_part;
+		if( result == null ) {
+			// the remainder shares the common divisors with the denominator,
+			// so it's reduced if this fraction is
+			if( isSmall() ) {
+				result = new MixedFraction( small_numerator % small_denominator, small_denominator,
+						null, null, isNormal() );
+			} else if( isNormal() ) {
+				result = fromReduced( numerator.remainder( denominator ), denominator );
+			} else {
+				result = fromBigIntegers( numerator.remainder( denominator ), denominator );
+			}
+			fraction_part = result;
+		}
+		return result;
 	}
 	
 	public boolean hasIntegerPart() {
+		if( isSmall() ) {
+			return Math.abs( small_numerator ) >= small_denominator;
+		}
 		return ( numerator.abs().compareTo( denominator ) >= 0 );
 	}
 	
 	public boolean hasFractionPart() {
-		return ! getNumerator().equals( BigInteger.ZERO );
+		if( isSmall() ) {
+			return small_numerator % small_denominator != 0;
+		}
+		return numerator.remainder( denominator ).signum() != 0;
 	}
 	
 	public BigInteger getTrueNumerator() {
-		return numerator;
+		return normal().bigNumerator();
 	}
 	
 	public BigInteger getNumerator() {
-		return numerator.remainder( denominator );
+		var reduced = normal();
+		if( reduced.isSmall() ) {
+			return BigInteger.valueOf( reduced.small_numerator % reduced.small_denominator );
+		}
+		return reduced.numerator.remainder( reduced.denominator );
 	}
 	
 	public BigInteger getDenominator() {
-		return denominator;
+		return normal().bigDenominator();
 	}
 	
 	public boolean isZero() {
+		if( isSmall() ) {
+			return small_numerator == 0;
+		}
 		return numerator.equals( BigInteger.ZERO );
 	}
 	
 	public boolean isNegative() {
+		if( isSmall() ) {
+			return small_numerator < 0;
+		}
 		return (numerator.compareTo( BigInteger.ZERO ) < 0);
 	}
 	
 	public MixedFraction add(MixedFraction other) {
-		return new MixedFraction(
-				numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
-				denominator.multiply(other.denominator)
+		if( isSmall() && other.isSmall() ) {
+			var result = addSmall( this, other );
+			if( result == null && ! ( isNormal() && other.isNormal() ) ) {
+				// reduced operands may still fit
+				result = addSmall( normal(), other.normal() );
+			}
+			if( result != null ) {
+				return result;
+			}
+		}
+		// BigIntegers would only keep growing, so they are reduced before each step
+		var left = normal();
+		var right = other.normal();
+		var d = left.bigDenominator();
+		var other_d = right.bigDenominator();
+		if( d.equals( other_d ) ) {
+			return fromBigIntegers( left.bigNumerator().add( right.bigNumerator() ), d );
+		}
+		return fromBigIntegers(
+				left.bigNumerator().multiply( other_d ).add( right.bigNumerator().multiply( d ) ),
+				d.multiply( other_d )
 		);
 	}
 	
+	/**
+	 * @return the sum of two long forms, or {@code null} if it doesn't fit into longs
+	 */
+	private static MixedFraction addSmall(MixedFraction a, MixedFraction b) {
+		try {
+			if( a.small_denominator == b.small_denominator ) {
+				return fromLongs(
+						Math.addExact( a.small_numerator, b.small_numerator ),
+						a.small_denominator
+				);
+			}
+			return fromLongs(
+					Math.addExact(
+							Math.multiplyExact( a.small_numerator, b.small_denominator ),
+							Math.multiplyExact( b.small_numerator, a.small_denominator )
+					),
+					Math.multiplyExact( a.small_denominator, b.small_denominator )
+			);
+		} catch( ArithmeticException overflow ) {
+			return null;
+		}
+	}
+	
 	public MixedFraction add(BigInteger other) {
-		return this.add( new MixedFraction( other ) );
+		// (n + other*d) shares the common divisors with d, so it's reduced if this fraction is
+		if( isSmall() && fitsInLong( other ) ) {
+			try {
+				long sum = Math.addExact( small_numerator, Math.multiplyExact( other.longValue(), small_denominator ) );
+				// Long.MIN_VALUE doesn't fit the long form
+				if( sum != Long.MIN_VALUE ) {
+					return new MixedFraction( sum, small_denominator, null, null, isNormal() );
+				}
+			} catch( ArithmeticException overflow ) {
+				//fall back to BigIntegers
+			}
+		}
+		var reduced = normal();
+		return fromReduced(
+				reduced.bigNumerator().add( other.multiply( reduced.bigDenominator() ) ),
+				reduced.bigDenominator()
+		);
 	}
 	
 	public MixedFraction subtract(MixedFraction other) {
-		return this.add( other.multiply( minusOne ) );
+		return this.add( other.negate() );
 	}
 	
 	public MixedFraction subtract(BigInteger other) {
-		return this.subtract( new MixedFraction( other ) );
+		return this.add( other.negate() );
 	}
 	
 	public MixedFraction multiply(BigInteger scalar) {
-		return new MixedFraction(
-				numerator.multiply(scalar),
-				denominator
+		if( isSmall() && fitsInLong( scalar ) ) {
+			var result = multiplySmall( this, scalar.longValue(), 1 );
+			if( result == null && ! isNormal() ) {
+				result = multiplySmall( normal(), scalar.longValue(), 1 );
+			}
+			if( result != null ) {
+				return result;
+			}
+		}
+		var reduced = normal();
+		return fromBigIntegers(
+				reduced.bigNumerator().multiply(scalar),
+				reduced.bigDenominator()
 		);
 	}
 	public MixedFraction multiply(int scalar) {
+		if( isSmall() ) {
+			var result = multiplySmall( this, scalar, 1 );
+			if( result == null && ! isNormal() ) {
+				result = multiplySmall( normal(), scalar, 1 );
+			}
+			if( result != null ) {
+				return result;
+			}
+		}
 		return multiply( BigInteger.valueOf( scalar ) );
 	}
 	
 	public MixedFraction multiply(MixedFraction other) {
-		return new MixedFraction(
-				numerator.multiply( other.numerator ),
-				denominator.multiply( other.denominator )
+		if( isSmall() && other.isSmall() ) {
+			var result = multiplySmall( this, other.small_numerator, other.small_denominator );
+			if( result == null && ! ( isNormal() && other.isNormal() ) ) {
+				var reduced = other.normal();
+				result = multiplySmall( normal(), reduced.small_numerator, reduced.small_denominator );
+			}
+			if( result != null ) {
+				return result;
+			}
+		}
+		var left = normal();
+		var right = other.normal();
+		return fromBigIntegers(
+				left.bigNumerator().multiply( right.bigNumerator() ),
+				left.bigDenominator().multiply( right.bigDenominator() )
 		);
 	}
 	
 	public MixedFraction divide(MixedFraction other) {
-		return new MixedFraction(
-				numerator.multiply( other.denominator ),
-				denominator.multiply( other.numerator )
+		if( other.isZero() ) {
+			throw new ArithmeticException("Denominator can't be equal zero.");
+		}
+		if( isSmall() && other.isSmall() ) {
+			var result = multiplySmall( this, other.small_denominator, other.small_numerator );
+			if( result == null && ! ( isNormal() && other.isNormal() ) ) {
+				var reduced = other.normal();
+				result = multiplySmall( normal(), reduced.small_denominator, reduced.small_numerator );
+			}
+			if( result != null ) {
+				return result;
+			}
+		}
+		var left = normal();
+		var right = other.normal();
+		return fromBigIntegers(
+				left.bigNumerator().multiply( right.bigDenominator() ),
+				left.bigDenominator().multiply( right.bigNumerator() )
 		);
 	}
 	
+	/**
+	 * @return (a * n/d) computed on the long form, or {@code null} if it doesn't fit into longs
+	 */
+	private static MixedFraction multiplySmall(MixedFraction a, long n, long d) {
+		try {
+			return fromLongs(
+					Math.multiplyExact( a.small_numerator, n ),
+					Math.multiplyExact( a.small_denominator, d )
+			);
+		} catch( ArithmeticException overflow ) {
+			return null;
+		}
+	}
+	
 	public MixedFraction divide(BigInteger scalar) {
-		return divide( new MixedFraction( scalar ) );
+		if( scalar.signum() == 0 ) {
+			throw new ArithmeticException("Denominator can't be equal zero.");
+		}
+		if( isSmall() && fitsInLong( scalar ) ) {
+			var result = multiplySmall( this, 1, scalar.longValue() );
+			if( result == null && ! isNormal() ) {
+				result = multiplySmall( normal(), 1, scalar.longValue() );
+			}
+			if( result != null ) {
+				return result;
+			}
+		}
+		var reduced = normal();
+		return fromBigIntegers( reduced.bigNumerator(), reduced.bigDenominator().multiply( scalar ) );
 	}
 	
 	public MixedFraction divide(int scalar) {
@@ -153,20 +522,23 @@ public class MixedFraction implements Comparable<MixedFraction> {
 	}
 	
 	public MixedFraction abs() {
-		return new MixedFraction(
-				numerator.abs(),
-				denominator
-		);
+		return isNegative() ? negate() : this;
 	}
 	
 	public MixedFraction negate() {
-		return new MixedFraction(
-				numerator.negate(),
-				denominator
-		);
+		if( isSmall() ) {
+			return new MixedFraction( -small_numerator, small_denominator, null, null, isNormal() );
+		}
+		if( isNormal() ) {
+			return fromReduced( numerator.negate(), denominator );
+		}
+		return fromBigIntegers( numerator.negate(), denominator );
 	}
 	
 	public BigInteger ceil() {
+		if( isSmall() ) {
+			return BigInteger.valueOf( -Math.floorDiv( -small_numerator, small_denominator ) );
+		}
 		if( ! isNegative() ) {
 			var result = getInteger();
 			if( hasFractionPart() ) {
@@ -179,6 +551,9 @@ public class MixedFraction implements Comparable<MixedFraction> {
 	}
 	
 	public BigInteger floor() {
+		if( isSmall() ) {
+			return BigInteger.valueOf( Math.floorDiv( small_numerator, small_denominator ) );
+		}
 		if( isNegative() ) {
 			var result = getInteger();
 			if( hasFractionPart() ) {
@@ -193,9 +568,17 @@ public class MixedFraction implements Comparable<MixedFraction> {
 	@SuppressWarnings("RedundantIfStatement")
 	@Override
 	public boolean equals(Object obj) {
-		if( obj instanceof MixedFraction fraction) {
-			if( ! numerator.equals( fraction.numerator ) ) return false;
-			if( ! denominator.equals( fraction.denominator ) ) return false;
+		if( obj instanceof MixedFraction other) {
+			var reduced = normal();
+			var fraction = other.normal();
+			// both forms are canonical: a value is kept as BigIntegers only when it doesn't fit into longs
+			if( reduced.isSmall() != fraction.isSmall() ) return false;
+			if( reduced.isSmall() ) {
+				return reduced.small_numerator == fraction.small_numerator
+						&& reduced.small_denominator == fraction.small_denominator;
+			}
+			if( ! reduced.numerator.equals( fraction.numerator ) ) return false;
+			if( ! reduced.denominator.equals( fraction.denominator ) ) return false;
 			
 			return true;
 		} else {
@@ -205,25 +588,36 @@ public class MixedFraction implements Comparable<MixedFraction> {
 	
 	@Override
 	public int hashCode() {
-		final BigInteger prime = BigInteger.valueOf( 919 );
-		return prime.multiply( numerator ).add( denominator ).hashCode();
+		var result = hash;
+		if( result == 0 ) {
+			final int prime = 919;
+			var reduced = normal();
+			if( reduced.isSmall() ) {
+				result = prime * Long.hashCode( reduced.small_numerator ) + Long.hashCode( reduced.small_denominator );
+			} else {
+				result = prime * reduced.numerator.hashCode() + reduced.denominator.hashCode();
+			}
+			hash = result;
+		}
+		return result;
 	}
 	
 	@Override
 	public String toString() {
+		var reduced = normal();
 		String result = "";
 		boolean integerMinus = false;
-		if( hasIntegerPart() ) {
-			result = getInteger().toString() + " ";
+		if( reduced.hasIntegerPart() ) {
+			result = reduced.getInteger().toString() + " ";
 			if(result.startsWith( "-" )) {
 				integerMinus = true;
 			}
 		}
-		if( hasFractionPart() ) {
+		if( reduced.hasFractionPart() ) {
 			if( integerMinus )
-				result += getNumerator().negate() + "/" + getDenominator().toString();
+				result += reduced.getNumerator().negate() + "/" + reduced.getDenominator().toString();
 			else
-				result += getNumerator() + "/" + getDenominator().toString();
+				result += reduced.getNumerator() + "/" + reduced.getDenominator().toString();
 		}
 		result = result.strip();
 		if( result.equals( "" ) ) {
@@ -233,41 +627,38 @@ public class MixedFraction implements Comparable<MixedFraction> {
 	}
 	
 	public static MixedFraction fromString(String str) {
-		str = str.strip();
-		BigInteger i, n, d;
-		
-		if( str.contains( " " ) ) {
-			var strI = str.substring( 0, str.indexOf( ' ' ) );
-			str = str.substring( str.indexOf( ' ' )+1 ).strip();
-			
-			i = new BigInteger( strI );
-		} else {
-			if( str.contains( "/" ) )
-				i = BigInteger.ZERO;
-			else {
-				i = new BigInteger( str );
-				str = "";
-			}
-		}
-		
-		if( str.contains( "/" ) ) {
-			var strN = str.substring( 0, str.indexOf( '/' ) );
-			var strD = str.substring( str.indexOf( '/' )+1 );
-			
-			n = new BigInteger( strN );
-			d = new BigInteger( strD );
-		} else {
-			n = BigInteger.ZERO;
-			d = BigInteger.ONE;
+		var result = new NumberScanner( str ).readFraction();
+		if( result == null ) {
+			throw new NumberFormatException("Not a fraction: \"" + str + "\"");
 		}
-		
-		return new MixedFraction( i, n, d );
+		return result;
 	}
 	
 	@Override
 	public int compareTo(MixedFraction other) {
-		var n1 = numerator.multiply( other.denominator );
-		var n2 = other.numerator.multiply( denominator );
+		// cross multiplication doesn't need reduced fractions
+		if( isSmall() && other.isSmall() ) {
+			if( small_denominator == other.small_denominator ) {
+				return Long.compare( small_numerator, other.small_numerator );
+			}
+			return compareProducts(
+					small_numerator, other.small_denominator,
+					other.small_numerator, small_denominator
+			);
+		}
+		var n1 = bigNumerator().multiply( other.bigDenominator() );
+		var n2 = other.bigNumerator().multiply( bigDenominator() );
 		return n1.compareTo( n2 );
 	}
+	
+	/**
+	 * Compares a*b with c*d using exact 128-bit products.
+	 */
+	static int compareProducts(long a, long b, long c, long d) {
+		int high = Long.compare( Math.multiplyHigh( a, b ), Math.multiplyHigh( c, d ) );
+		if( high != 0 ) {
+			return high;
+		}
+		return Long.compareUnsigned( a * b, c * d );
+	}
 }
@@ -1,86 +1,74 @@
 package pl.felixspeagel.calcal.math;
 
 import java.math.BigInteger;
-import java.text.DecimalFormat;
-import java.util.HashMap;
-import java.util.regex.Pattern;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Utility class for converting between textual and fraction representation
  */
 public class NumberConverter {
 	
+	private static final ConcurrentHashMap<Locale, String> decimal_separators = new ConcurrentHashMap<>();
+	
+	/**
+	 * @return the decimal separator of the current locale, looked up once per locale
+	 */
 	private static String getDecimalSeparator() {
-		DecimalFormat D_format = (DecimalFormat)DecimalFormat.getInstance();
-		var symbols = D_format.getDecimalFormatSymbols();
-		char decimalSeparator = symbols.getDecimalSeparator();
-		return String.valueOf( decimalSeparator );
-	}
-	private static String getDecimalFormat() {
-		var format = getDecimalSeparator();
-		format = "(\\d+)(\\" + format + "(\\d+|\\d*\\(\\d+\\)))?";
-		return format;
+		return decimal_separators.computeIfAbsent( Locale.getDefault( Locale.Category.FORMAT ), locale -> {
+			var symbols = DecimalFormatSymbols.getInstance( locale );
+			return String.valueOf( symbols.getDecimalSeparator() );
+		} );
 	}
 	
-	private static final Pattern DHMS_textPattern = Pattern.compile(
-			"^(-?\\d+)(\\s+\\d+h)?(\\s+\\d+m)?(\\s+" + getDecimalFormat() +"s)?$"
-	);
-	
 	/**
 	 * Day-Hours-Minutes-Seconds text to fractal converter
 	 * @param DHMS_text text in form "DD HHh MMm SSs"
 	 * @return Fraction
 	 */
 	public static MixedFraction DHMS_textToFraction(String DHMS_text, HMSRecord one_day) throws WrongNumberFormat {
-		DHMS_text = DHMS_text.strip().toLowerCase();
-		var match = DHMS_textPattern.matcher( DHMS_text );
-		boolean isNegative = false;
+		var scanner = new NumberScanner( DHMS_text );
+		boolean isNegative = scanner.skip( '-' );
+		if( ! scanner.readDigits() ) {
+			throw new WrongNumberFormat();
+		}
+		var result = scanner.digitsValue();
 		
-		if( match.find() ) {
-			String temp;
-			var daysNumber = Integer.parseInt( match.group(1) );
-			
-			if( daysNumber < 0 ) {
-				isNegative = true;
-				daysNumber *= -1;
-			}
-			
-			var hoursNumber = 0;
-			if( match.group(2) != null ) {
-				temp = match.group(2).strip();
-				temp = temp.substring( 0, temp.length() - 1 );
-				hoursNumber = Integer.parseInt( temp );
-			}
-			var minutesNumber = 0;
-			if( match.group(3) != null ) {
-				temp = match.group(3).strip();
-				temp = temp.substring( 0, temp.length() - 1 );
-				minutesNumber = Integer.parseInt( temp );
+		//hours, minutes and seconds, each optional but in this order
+		int last_unit = 0;
+		while( ! scanner.atEnd() ) {
+			if( ! scanner.skipWhitespace() || ! scanner.readDigits() ) {
+				throw new WrongNumberFormat();
 			}
-			var secondsNumber = MixedFraction.ZERO;
-			if( match.group(4) != null ) {
-				temp = match.group(4).strip();
-				temp = temp.substring( 0, temp.length() - 1 );
-				
-				secondsNumber = DecimalTextToFraction( temp );
-			}
-			
-			var result = new MixedFraction( daysNumber );
-			result = result.add( new MixedFraction( hoursNumber, one_day.hours() ) );
-			result = result.add( new MixedFraction( minutesNumber, one_day.minutes_in_day() ) );
-			result = result.add(secondsNumber.divide( one_day.seconds_in_day() ));
-			
-			if( isNegative ) {
-				return result.negate();
+			if( last_unit < 1 && scanner.skipLetter( 'h' ) ) {
+				result = result.add( scanner.digitsValue().divide( one_day.hours() ) );
+				last_unit = 1;
+			} else if( last_unit < 2 && scanner.skipLetter( 'm' ) ) {
+				result = result.add( scanner.digitsValue().divide( one_day.minutes_in_day() ) );
+				last_unit = 2;
+			} else if( last_unit < 3 ) {
+				var secondsNumber = scanner.continueDecimal( getDecimalSeparator(), false );
+				if( secondsNumber == null || ! scanner.skipLetter( 's' ) ) {
+					throw new WrongNumberFormat();
+				}
+				result = result.add( secondsNumber.divide( one_day.seconds_in_day() ) );
+				last_unit = 3;
 			} else {
-				return result;
+				throw new WrongNumberFormat();
 			}
+		}
+		
+		if( isNegative ) {
+			return result.negate();
 		} else {
-			throw new WrongNumberFormat();
+			return result;
 		}
 	}
 	
 	/**
-	 * Converts fraction to Day-Hour-Minute-Second text
+	 * Converts fraction to Day-Hour-Minute-Second text.
+	 * The seconds are written out whole, so {@link #DHMS_textToFraction} gives the same value back.
 	 * @param fraction A fraction to convert
 	 * @return text in format "DD HHh MMm SSs"
 	 */
@@ -122,13 +110,11 @@ public class NumberConverter {
 		
 		//Seconds
 		fraction = fraction.multiply( one_day.seconds() );
-		result.append( FractionToDecimalText(fraction) ).append( "s" );
+		result.append( FractionToExactDecimalText(fraction) ).append( "s" );
 		
 		return result.toString().strip();
 	}
 	
-	private static final Pattern DecimalTextPattern = Pattern.compile("^-?" + getDecimalFormat() + "$");
-	
 	/**
 	 * Convert a decimal to a fraction
 	 * @param decimal Input in form "1.23(45)"
@@ -136,59 +122,65 @@ public class NumberConverter {
 	 * @throws WrongNumberFormat if the decimal text is wrong
 	 */
 	public static MixedFraction DecimalTextToFraction(String decimal) throws WrongNumberFormat {
-		decimal = decimal.strip();
-		var match = DecimalTextPattern.matcher( decimal );
-		
-		if( ! match.find() ) {
+		var scanner = new NumberScanner( decimal );
+		var result = scanner.readDecimal( getDecimalSeparator(), true );
+		if( result == null || ! scanner.atEnd() ) {
 			throw new WrongNumberFormat();
 		}
-		
-		boolean neg = decimal.startsWith( "-" );
-		
-		var integerPart = BigInteger.valueOf( Long.parseLong( match.group(1) ) );
-		var fractionPart = MixedFraction.ZERO;
-		
-		if( match.group(2) != null) {
-			var temp = match.group(2);
-			//remove decimal separator
-			temp = temp.substring( 1 );
-			
-			if( temp.contains( "(" ) ) {
-				//divide to normal and period parts
-				var normalPartText = temp.substring( 0, temp.indexOf( "(" ) );
-				var periodPartText = temp.substring( temp.indexOf( "(" )+1, temp.length()-1 );
-				
-				//normal part
-				var normalNumerator = BigInteger.ZERO;
-				if( ! normalPartText.isEmpty() ) {
-					normalNumerator = BigInteger.valueOf( Long.parseLong( normalPartText ) );
-				}
-				var normalDenominator = BigInteger.TEN.pow( normalPartText.length() );
-				fractionPart = new MixedFraction( normalNumerator, normalDenominator );
-				
-				//period part
-				var periodNumerator = BigInteger.valueOf( Long.parseLong( periodPartText ) );
-				var periodDenominator =
-						BigInteger.valueOf( Long.parseLong( "9".repeat( periodPartText.length() ) ) );
-				periodDenominator = periodDenominator.multiply( normalDenominator );
-				
-				fractionPart = fractionPart.add( new MixedFraction( periodNumerator, periodDenominator ) );
-			} else {
-				var numerator = BigInteger.valueOf( Long.parseLong( temp ) );
-				var denominator = BigInteger.TEN.pow( temp.length() );
-				fractionPart = new MixedFraction( numerator, denominator );
-			}
-		}
-		
-		return new MixedFraction( integerPart ).add(fractionPart).multiply( neg?-1:1 );
+		return result;
 	}
 	
 	/**
-	 * Converts a fraction into a decimal representation.
+	 * How many digits after the separator a decimal for display has at most.
+	 */
+	public static final int DISPLAY_DIGITS = 100;
+	
+	/**
+	 * Converts a fraction into a decimal representation for display, cut short after {@link #DISPLAY_DIGITS} digits.
 	 * @param fraction Fraction to convert
 	 * @return Decimal in form "1.23(45)"
 	 */
 	public static String FractionToDecimalText(MixedFraction fraction) {
+		return FractionToDecimalText( fraction, DISPLAY_DIGITS );
+	}
+	
+	/**
+	 * Converts a fraction into the whole decimal representation, to be read back with {@link #DecimalTextToFraction(String)}.
+	 * <p>
+	 * The text is as long as the period, which can have almost as many digits as the denominator,
+	 * so it's only for the editable fields which have to give the same value back,
+	 * with {@link #FractionToDHMS_text} too.
+	 * @param fraction Fraction to convert
+	 * @return Decimal in form "1.23(45)"
+	 */
+	public static String FractionToExactDecimalText(MixedFraction fraction) {
+		return FractionToDecimalText( fraction, Integer.MAX_VALUE );
+	}
+	
+	/**
+	 * Marks a decimal cut short by the digits limit.
+	 */
+	public static final String ELLIPSIS = "…";
+	
+	/**
+	 * Up to this many digits of the period are looked for by the long division itself,
+	 * which is quicker than factoring the denominator for the multiplicative order.
+	 */
+	private static final int PERIOD_SEARCH_LIMIT = 1 << 16;
+	
+	/**
+	 * Converts a fraction into a decimal representation with at most max_digits digits after the separator.
+	 * <p>
+	 * The length of the non-repeating part comes from the powers of 2 and 5 in the denominator,
+	 * and the length of the period is the multiplicative order of 10 modulo the rest of it,
+	 * so the digits are written out by a plain long division without remembering the remainders.
+	 * When only a few digits of the period can be shown, it's just checked whether the period ends
+	 * among them, and the denominator isn't factored.
+	 * @param fraction Fraction to convert
+	 * @param max_digits how many digits after the separator to write at most
+	 * @return Decimal in form "1.23(45)", or "1.23(4…)" if it was too long
+	 */
+	public static String FractionToDecimalText(MixedFraction fraction, int max_digits) {
 		StringBuilder resultText = new StringBuilder();
 		if( fraction.isNegative() ) {
 			resultText.append( '-' );
@@ -208,34 +200,108 @@ public class NumberConverter {
 		
 		var num = fraction.getNumerator();
 		var den = fraction.getDenominator();
-		//quotient
-		var res = num.divide( den );
 		
-		//if remainder is 0, return result
-		var remainder = num.remainder( den ).multiply( BigInteger.TEN );
-		if( remainder.equals( BigInteger.ZERO )) {
+		//den = 2^twos * 5^fives * rest
+		int twos = den.getLowestSetBit();
+		var rest = den.shiftRight( twos );
+		int fives = 0;
+		var five = BigInteger.valueOf( 5 );
+		var division = rest.divideAndRemainder( five );
+		while( division[1].signum() == 0 ) {
+			rest = division[0];
+			fives++;
+			division = rest.divideAndRemainder( five );
+		}
+		long normal_length = Math.max( twos, fives );
+		
+		var digits = new DigitWriter( num, den, resultText );
+		if( normal_length > max_digits ) {
+			digits.write( max_digits );
+			resultText.append( ELLIPSIS );
+			return resultText.toString();
+		}
+		digits.write( normal_length );
+		if( rest.equals( BigInteger.ONE ) ) {
 			return resultText.toString();
 		}
 		
-		//right-hand side of decimal point
-		var map = new HashMap<BigInteger, Integer>();
-		while( ! remainder.equals( BigInteger.ZERO ) ) {
-			//if digits repeat
-			if( map.containsKey( remainder ) ) {
-				int beg = map.get(remainder);
-				String part1 = resultText.substring( 0, beg );
-				String part2 = resultText.substring( beg );
-				return part1 + "(" + part2 + ")";
+		resultText.append( '(' );
+		long budget = max_digits - normal_length;
+		long period_length;
+		if( budget <= PERIOD_SEARCH_LIMIT && rest.compareTo( BigInteger.valueOf( budget ) ) > 0 ) {
+			period_length = periodUpTo( rest, budget );
+		} else {
+			period_length = Factorization.multiplicativeOrder( BigInteger.TEN, rest )
+					.min( BigInteger.valueOf( Long.MAX_VALUE ) ).longValue();
+		}
+		if( budget >= period_length ) {
+			digits.write( period_length );
+		} else {
+			digits.write( budget );
+			resultText.append( ELLIPSIS );
+		}
+		resultText.append( ')' );
+		return resultText.toString();
+	}
+	
+	/**
+	 * The multiplicative order of 10 modulo the number if it's at most the limit,
+	 * found by multiplying by 10 until it gives 1.
+	 * @return the order, or Long.MAX_VALUE if it's longer than the limit
+	 */
+	private static long periodUpTo(BigInteger modulus, long limit) {
+		var remainder = BigInteger.ONE;
+		for(long length=1; length<=limit; length++) {
+			remainder = remainder.multiply( BigInteger.TEN ).mod( modulus );
+			if( remainder.equals( BigInteger.ONE ) ) {
+				return length;
 			}
-			
-			//continue
-			map.put( remainder, resultText.length() );
-			res = remainder.divide( den );
-			resultText.append( res );
-			remainder = remainder.remainder( den ).multiply( BigInteger.TEN );
 		}
+		return Long.MAX_VALUE;
+	}
+	
+	/**
+	 * Long division of a proper fraction, one digit at a time
+	 */
+	private static class DigitWriter {
+		private final StringBuilder output;
+		private final BigInteger big_denominator;
+		private BigInteger big_remainder;
+		private final long denominator;
+		private long remainder;
 		
-		return resultText.toString();
+		DigitWriter(BigInteger numerator, BigInteger denominator, StringBuilder output) {
+			this.output = output;
+			// remainder * 10 must fit into a long
+			if( denominator.compareTo( BigInteger.valueOf( Long.MAX_VALUE / 10 ) ) < 0 ) {
+				this.denominator = denominator.longValue();
+				this.remainder = numerator.longValue();
+				this.big_denominator = null;
+			} else {
+				this.denominator = 0;
+				this.big_denominator = denominator;
+				this.big_remainder = numerator;
+			}
+		}
+		
+		/**
+		 * Appends the next count digits to the output
+		 */
+		void write(long count) {
+			if( big_denominator == null ) {
+				for(long i=0; i<count; i++) {
+					remainder *= 10;
+					output.append( (char) ('0' + remainder / denominator) );
+					remainder %= denominator;
+				}
+				return;
+			}
+			for(long i=0; i<count; i++) {
+				var division = big_remainder.multiply( BigInteger.TEN ).divideAndRemainder( big_denominator );
+				output.append( (char) ('0' + division[0].intValue()) );
+				big_remainder = division[1];
+			}
+		}
 	}
 	
 	/**
@@ -247,23 +313,21 @@ public class NumberConverter {
 		return fraction.toString();
 	}
 	
-	private static final Pattern fractionPattern = Pattern.compile(
-			"^-?(\\d+|\\d+/\\d+|\\d+ +\\d+/\\d+)$"
-	);
-	
 	/**
 	 * Converts text to fraction
 	 * @param text String in format "I N/D"
 	 * @return fraction
 	 */
 	public static MixedFraction TextToFraction(String text) throws WrongNumberFormat {
-		text = text.strip();
-		var match = fractionPattern.matcher( text );
-		
-		if( ! match.find() ) {
+		var scanner = new NumberScanner( text );
+		try {
+			var result = scanner.readFraction();
+			if( result == null ) {
+				throw new WrongNumberFormat();
+			}
+			return result;
+		} catch( ArithmeticException zero_denominator ) {
 			throw new WrongNumberFormat();
 		}
-		
-		return MixedFraction.fromString( text );
 	}
 }
@@ -0,0 +1,251 @@
+package pl.felixspeagel.calcal.math;
+
+import java.math.BigInteger;
+
+/**
+ * Single pass reader of the textual number formats.
+ * <p>
+ * It walks the text once without cutting it into substrings, and reads
+ * runs of digits straight into a long. A BigInteger is only made for a run
+ * which doesn't fit.
+ */
+class NumberScanner {
+	
+	private static final long[] POWERS_OF_TEN = new long[19];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for(int i=1; i<POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1] * 10;
+		}
+	}
+	
+	private final String text;
+	private final int end;
+	private int position;
+	
+	//the last run of digits
+	private long value;
+	private BigInteger big_value; // null if the run fits into value
+	private int length;
+	
+	/**
+	 * @param text the text to read; leading and trailing whitespace is skipped
+	 */
+	NumberScanner(String text) {
+		int begin = 0;
+		int stop = text.length();
+		while( begin < stop && Character.isWhitespace( text.charAt( begin ) ) ) begin++;
+		while( stop > begin && Character.isWhitespace( text.charAt( stop - 1 ) ) ) stop--;
+		this.text = text;
+		this.position = begin;
+		this.end = stop;
+	}
+	
+	boolean atEnd() {
+		return position == end;
+	}
+	
+	/**
+	 * Moves past the given character if it's the next one.
+	 * @return was the character there
+	 */
+	boolean skip(char character) {
+		if( position < end && text.charAt( position ) == character ) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Like {@link #skip(char)}, but accepts the upper case letter too.
+	 */
+	boolean skipLetter(char lower_case) {
+		if( position < end && Character.toLowerCase( text.charAt( position ) ) == lower_case ) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Moves past the separator if it's next.
+	 */
+	boolean skip(String separator) {
+		if( text.startsWith( separator, position ) && position + separator.length() <= end ) {
+			position += separator.length();
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Moves past any spaces.
+	 * @return was there at least one
+	 */
+	boolean skipSpaces() {
+		int start = position;
+		while( position < end && text.charAt( position ) == ' ' ) position++;
+		return position > start;
+	}
+	
+	/**
+	 * Moves past any whitespace.
+	 * @return was there at least one
+	 */
+	boolean skipWhitespace() {
+		int start = position;
+		while( position < end && Character.isWhitespace( text.charAt( position ) ) ) position++;
+		return position > start;
+	}
+	
+	/**
+	 * Reads a run of the digits 0-9.
+	 * @return false if there wasn't any digit
+	 */
+	boolean readDigits() {
+		int start = position;
+		long result = 0;
+		boolean overflow = false;
+		while( position < end ) {
+			int digit = text.charAt( position ) - '0';
+			if( digit < 0 || digit > 9 ) break;
+			if( result < Long.MAX_VALUE / 10 ) {
+				result = result * 10 + digit;
+			} else {
+				overflow = true;
+			}
+			position++;
+		}
+		length = position - start;
+		value = result;
+		big_value = overflow ? new BigInteger( text.substring( start, position ) ) : null;
+		return length > 0;
+	}
+	
+	/**
+	 * @return the last run of digits
+	 */
+	MixedFraction digitsValue() {
+		if( big_value == null ) {
+			return MixedFraction.ofReduced( value, 1 );
+		}
+		return MixedFraction.ofReduced( big_value, BigInteger.ONE );
+	}
+	
+	private static BigInteger big(long value, BigInteger big_value) {
+		return big_value != null ? big_value : BigInteger.valueOf( value );
+	}
+	
+	/**
+	 * Reads the whole text as a fraction in the form "I", "N/D" or "I N/D", each optionally starting with a minus.
+	 * @return the fraction, or null if the text isn't in this form
+	 * @throws ArithmeticException if the denominator is zero
+	 */
+	MixedFraction readFraction() {
+		boolean negative = skip( '-' );
+		if( ! readDigits() ) return null;
+		long integer = value;
+		BigInteger big_integer = big_value;
+		if( atEnd() ) {
+			return compose( negative, integer, big_integer, 0, null, 1, null );
+		}
+		
+		long numerator = 0;
+		BigInteger big_numerator = null;
+		if( skipSpaces() ) {
+			if( ! readDigits() ) return null;
+			numerator = value;
+			big_numerator = big_value;
+		} else {
+			numerator = integer;
+			big_numerator = big_integer;
+			integer = 0;
+			big_integer = null;
+		}
+		if( ! skip( '/' ) || ! readDigits() || ! atEnd() ) return null;
+		
+		return compose( negative, integer, big_integer, numerator, big_numerator, value, big_value );
+	}
+	
+	/**
+	 * (integer * denominator + numerator) / denominator
+	 */
+	private static MixedFraction compose(boolean negative,
+	                                     long integer, BigInteger big_integer,
+	                                     long numerator, BigInteger big_numerator,
+	                                     long denominator, BigInteger big_denominator) {
+		if( big_integer == null && big_numerator == null && big_denominator == null ) {
+			try {
+				long result = Math.addExact( Math.multiplyExact( integer, denominator ), numerator );
+				return MixedFraction.of( negative ? -result : result, denominator );
+			} catch( ArithmeticException overflow ) {
+				//go on with BigIntegers, which also report a zero denominator again
+			}
+		}
+		var d = big( denominator, big_denominator );
+		var n = big( integer, big_integer ).multiply( d ).add( big( numerator, big_numerator ) );
+		return MixedFraction.of( negative ? n.negate() : n, d );
+	}
+	
+	/**
+	 * Reads a decimal in the form "1.23(45)" from the current position.
+	 * @param separator the decimal separator
+	 * @param signed is a leading minus allowed
+	 * @return the number, or null if there's no decimal at the current position
+	 */
+	MixedFraction readDecimal(String separator, boolean signed) {
+		boolean negative = signed && skip( '-' );
+		if( ! readDigits() ) return null;
+		return continueDecimal( separator, negative );
+	}
+	
+	/**
+	 * Reads the rest of a decimal whose integer digits were just read with {@link #readDigits()}.
+	 * @param separator the decimal separator
+	 * @param negative was there a minus before the digits
+	 * @return the number, or null if what follows isn't a decimal's fraction part
+	 */
+	MixedFraction continueDecimal(String separator, boolean negative) {
+		long integer = value;
+		BigInteger big_integer = big_value;
+		if( ! skip( separator ) ) {
+			return compose( negative, integer, big_integer, 0, null, 1, null );
+		}
+		
+		// normal digits, can be empty only if a period follows
+		readDigits();
+		long normal = value;
+		BigInteger big_normal = big_value;
+		int normal_length = length;
+		
+		long period = 0;
+		BigInteger big_period = null;
+		int period_length = 0;
+		if( skip( '(' ) ) {
+			if( ! readDigits() || ! skip( ')' ) ) return null;
+			period = value;
+			big_period = big_value;
+			period_length = length;
+		} else if( normal_length == 0 ) {
+			return null;
+		}
+		
+		// I.N(P) = (I * 10^n * (10^p - 1) + N * (10^p - 1) + P) / (10^n * (10^p - 1)), with (10^p - 1) taken as 1 without a period
+		if( big_integer == null && big_normal == null && big_period == null
+				&& normal_length < POWERS_OF_TEN.length && period_length < POWERS_OF_TEN.length ) {
+			long nines = period_length == 0 ? 1 : POWERS_OF_TEN[period_length] - 1;
+			try {
+				long denominator = Math.multiplyExact( POWERS_OF_TEN[normal_length], nines );
+				long numerator = Math.addExact( Math.multiplyExact( normal, nines ), period );
+				return compose( negative, integer, null, numerator, null, denominator, null );
+			} catch( ArithmeticException overflow ) {
+				//go on with BigIntegers
+			}
+		}
+		var nines = period_length == 0 ? BigInteger.ONE : BigInteger.TEN.pow( period_length ).subtract( BigInteger.ONE );
+		var denominator = BigInteger.TEN.pow( normal_length ).multiply( nines );
+		var numerator = big( normal, big_normal ).multiply( nines ).add( big( period, big_period ) );
+		return compose( negative, 0, big( integer, big_integer ), 0, numerator, 0, denominator );
+	}
+}
@@ -3,6 +3,7 @@ package pl.felixspeagel.calcal.views;
 import pl.felixspeagel.calcal.calculators.*;
 import pl.felixspeagel.calcal.controllers.CalendarTypeInput;
 import pl.felixspeagel.calcal.controllers.Refreshable;
+import pl.felixspeagel.calcal.math.NumberConverter;
 
 import javax.swing.*;
 import java.awt.*;
@@ -285,6 +286,19 @@ public class CalendarTypeView extends JPanel {
 			}
 			years_table.add(year_label);
 		}
+		
+		//the other cycles to choose from
+		var other_cycles = new StringBuilder( "<html>" + txt.getString( "metonic_other_cycles" ) );
+		for(var candidate : meton.candidates) {
+			if( ! candidate.convergent() || candidate.years() == meton.years ) continue;
+			var line = txt.getString( "metonic_other_cycle" )
+					.replace( "{{years}}", String.valueOf( candidate.years() ) )
+					.replace( "{{months}}", String.valueOf( candidate.months() ) )
+					.replace( "{{drift}}", NumberConverter.FractionToDecimalText( candidate.drift(), 3 ) );
+			other_cycles.append( "<br>" ).append( line );
+		}
+		other_cycles.append( "</html>" );
+		solution_panel.add(plainTextLabel(other_cycles.toString()));
 	}
 	
 	private void displayGregorian(Gregorian gregorian) {
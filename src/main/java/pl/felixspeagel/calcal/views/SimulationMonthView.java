@@ -1,6 +1,8 @@
 package pl.felixspeagel.calcal.views;
 
 import pl.felixspeagel.calcal.calculators.simulation.DayInMonth;
+import pl.felixspeagel.calcal.calculators.simulation.MonthGridCache;
+import pl.felixspeagel.calcal.calculators.simulation.MonthPrefetcher;
 import pl.felixspeagel.calcal.calculators.simulation.Simulation;
 
 import javax.swing.*;
@@ -13,6 +15,8 @@ import java.util.concurrent.atomic.AtomicReference;
 public class SimulationMonthView extends JPanel {
 	
 	private final AtomicReference<Simulation> simulation_ref;
+	private final MonthGridCache grids;
+	private final MonthPrefetcher prefetcher;
 	private final Color normal_month_color;
 	private final Color epagomenal_month_color;
 	private final Color leap_month_color;
@@ -21,9 +25,11 @@ public class SimulationMonthView extends JPanel {
 	private final JLabel month_name;
 	private final JPanel month_header;
 	
-	public SimulationMonthView(AtomicReference<Simulation> a_ref) {
+	public SimulationMonthView(AtomicReference<Simulation> a_ref, MonthGridCache a_cache, MonthPrefetcher a_prefetcher) {
 		super();
 		simulation_ref = a_ref;
+		grids = a_cache;
+		prefetcher = a_prefetcher;
 		normal_month_color = Color.decode( "#ca1d1d" );
 		epagomenal_month_color = Color.decode( "#3934b5" );
 		leap_month_color = Color.decode( "#39b534" );
@@ -169,7 +175,7 @@ public class SimulationMonthView extends JPanel {
 		days_panel.setLayout( new GridLayout(0,week_length) );
 		days_panel.removeAll();
 		
-		var daysInMonth = simulation_ref.get().getListOfDaysInTheMonth();
+		var daysInMonth = grids.get( simulation_ref.get() );
 		for(var oneWeek : daysInMonth) {
 			for(var oneDay : oneWeek) {
 				if( oneDay == null ) {
@@ -191,6 +197,9 @@ public class SimulationMonthView extends JPanel {
 		
 		days_panel.revalidate();
 		days_panel.repaint();
+		
+		// the next click will most likely go to one of the neighbours
+		prefetcher.prefetchAround( simulation_ref.get() );
 	}
 	
 	private static class DayBox extends JPanel {
@@ -235,7 +235,7 @@ public class SimulationSettingsView extends JPanel implements DarkThemeAware {
 		}
 		
 		private void switch_to_decimal() {
-			var text = NumberConverter.FractionToDecimalText(the_value);
+			var text = NumberConverter.FractionToExactDecimalText(the_value);
 			text_field.setText( text );
 		}
 		private void switch_to_fractal() {
@@ -74,7 +74,7 @@ public class SimulationView extends JDialog {
 		
 		var settings_view = new SimulationSettingsView( the_controller.settings );
 		central_panel.add(wrap(settings_view), "settings");
-		month_view = new SimulationMonthView( the_controller.simulation );
+		month_view = new SimulationMonthView( the_controller.simulation, the_controller.grids, the_controller.prefetcher );
 		central_panel.add(wrap( month_view ), "month_view");
 		if( simulation_printer_toggle != null ) {
 			var print_view = new SimulationPrinterView(the_controller.writer);
@@ -93,9 +93,16 @@ public class SimulationView extends JDialog {
 			settings_view.switchToDarkTheme();
 		}
 		
+		this.setDefaultCloseOperation( DISPOSE_ON_CLOSE );
 		this.pack();
 	}
 	
+	@Override
+	public void dispose() {
+		the_controller.close();
+		super.dispose();
+	}
+	
 	private boolean testForDarkTheme(AbstractButton test_button) {
 		var buttons_color = test_button.getBackground();
 		var hsv = Color.RGBtoHSB(
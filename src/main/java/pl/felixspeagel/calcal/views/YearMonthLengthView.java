@@ -1,6 +1,7 @@
 package pl.felixspeagel.calcal.views;
 
 import pl.felixspeagel.calcal.controllers.YearMonthLengthInput;
+import pl.felixspeagel.calcal.math.NumberConverter;
 
 import javax.swing.*;
 import javax.swing.border.Border;
@@ -18,6 +19,8 @@ public class YearMonthLengthView extends JPanel implements KeyListener, DarkThem
 	private final JTextField hours_text;
 	private final JTextField minutes_text;
 	private final JTextField seconds_text;
+	private final JTextField max_denominator_text;
+	private final Border max_denominator_ok_border;
 	private final JPanel day_length_panel;
 	private final JPanel calculation_result;
 	
@@ -94,6 +97,26 @@ public class YearMonthLengthView extends JPanel implements KeyListener, DarkThem
 		//known_values_panel.setPreferredSize( known_values_panel.getMinimumSize() );
 		this.add( known_values_panel );
 		
+		//Approximation
+		this.add(Box.createVerticalStrut( 10 ));
+		
+		var approximation_panel = new JPanel();
+		approximation_panel.setLayout( new BoxLayout( approximation_panel, BoxLayout.LINE_AXIS ) );
+		approximation_panel.setBorder( BorderFactory.createTitledBorder( txt.getString( "approximation_title" ) ) );
+		
+		approximation_panel.add(new JLabel(txt.getString( "max_denominator_label" )));
+		approximation_panel.add(Box.createHorizontalStrut( 10 ));
+		max_denominator_text = create_hms_input(controller.getMaxDenominatorText());
+		max_denominator_text.setPreferredSize( new Dimension( 100, 25 ) );
+		max_denominator_text.setMaximumSize( new Dimension( 100, 25 ) );
+		max_denominator_text.setToolTipText( txt.getString( "max_denominator_tooltip" ) );
+		max_denominator_ok_border = max_denominator_text.getBorder();
+		max_denominator_text.addKeyListener( this );
+		approximation_panel.add(max_denominator_text);
+		approximation_panel.add(Box.createHorizontalGlue());
+		
+		this.add( approximation_panel );
+		
 		//calculation result
 		//this.add(Box.createVerticalGlue());
 		this.add(Box.createVerticalStrut(20));
@@ -142,6 +165,17 @@ public class YearMonthLengthView extends JPanel implements KeyListener, DarkThem
 	@Override
 	public void keyReleased(KeyEvent keyEvent) {
 		var source = keyEvent.getComponent();
+		if( max_denominator_text == source ) {
+			controller.enterMaxDenominatorText( max_denominator_text.getText() );
+			if( controller.maxDenominatorInErrorState() ) {
+				max_denominator_text.setBorder( BorderFactory.createLineBorder( Color.RED ) );
+			} else {
+				max_denominator_text.setBorder( max_denominator_ok_border );
+			}
+			updateCalculations();
+			return;
+		}
+		
 		var day_input = controller.getDayInput();
 		if(hours_text == source) {
 			day_input.enterHoursText( hours_text.getText() );
@@ -199,6 +233,13 @@ public class YearMonthLengthView extends JPanel implements KeyListener, DarkThem
 			calculation_result.add(label);
 			noError = false;
 		}
+		if( controller.maxDenominatorInErrorState() ) {
+			var label = new JLabel(txt.getString( "incorrect_max_denominator" ));
+			label.setForeground( Color.RED );
+			label.setAlignmentX( 0.5f );
+			calculation_result.add(label);
+			noError = false;
+		}
 		
 		if(noError) {
 			var months = controller.getCalculatedMonthCount().toString();
@@ -207,6 +248,20 @@ public class YearMonthLengthView extends JPanel implements KeyListener, DarkThem
 			var label = new JLabel(result);
 			label.setAlignmentX( 0.5f );
 			calculation_result.add(label);
+			
+			if( controller.getMaxDenominator() != null ) {
+				final int error_digits = 3;
+				result = "<html>" + txt.getString( "approximation_result" ) + "</html>";
+				result = result.replace( "{{month}}", NumberConverter.FractionToText( controller.getMonthLength() ) );
+				result = result.replace( "{{year}}", NumberConverter.FractionToText( controller.getYearLength() ) );
+				result = result.replace( "{{month_error}}",
+						NumberConverter.FractionToDecimalText( controller.getMonthErrorInSeconds(), error_digits ) );
+				result = result.replace( "{{year_error}}",
+						NumberConverter.FractionToDecimalText( controller.getYearErrorInSeconds(), error_digits ) );
+				label = new JLabel(result);
+				label.setAlignmentX( 0.5f );
+				calculation_result.add(label);
+			}
 		}
 		
 		calculation_result.revalidate();
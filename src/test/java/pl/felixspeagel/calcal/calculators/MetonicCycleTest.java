@@ -3,6 +3,9 @@ package pl.felixspeagel.calcal.calculators;
 import org.junit.jupiter.api.Test;
 import pl.felixspeagel.calcal.math.MixedFraction;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MetonicCycleTest {
@@ -49,4 +52,32 @@ class MetonicCycleTest {
 		}
 		//*/
 	}
+	
+	@Test
+	public void candidate_cycles() {
+		var meton = new MetonicCycle( EARTH_YEAR_LENGTH, EARTH_MONTH_LENGTH, EARTH_MONTHS );
+		var convergent_years = new ArrayList<Integer>();
+		for(var candidate : meton.candidates) {
+			var drift = EARTH_YEAR_LENGTH.multiply( candidate.years() ).subtract( EARTH_MONTH_LENGTH.multiply( candidate.months() ) );
+			assertEquals( drift, candidate.drift() );
+			if( candidate.convergent() ) {
+				convergent_years.add( candidate.years() );
+			}
+		}
+		// 8 is the octaeteris, 19 Meton's cycle and 334 Callippus-like one
+		assertEquals( List.of( 1, 2, 3, 8, 11, 19, 334 ), convergent_years.subList( 0, 7 ) );
+		assertEquals( 99, meton.candidates.stream().filter( c -> c.years() == 8 ).findFirst().orElseThrow().months() );
+	}
+	
+	@Test
+	public void long_cycle() {
+		// lengths in thousandths of a day, so a day of drift is a thousand times harder to get
+		var year = EARTH_YEAR_LENGTH.multiply( 1000 );
+		var month = EARTH_MONTH_LENGTH.multiply( 1000 );
+		var meton = new MetonicCycle( year, month, EARTH_MONTHS );
+		
+		assertEquals( 20401, meton.years );
+		assertEquals( 252325, meton.months );
+		assertEquals( 20401, meton.cycle.length );
+	}
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.calculators.Islamic;
+import pl.felixspeagel.calcal.calculators.IntercalationType;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CycleLeapCalculatorTest {
+	
+	private static final IntercalationType N = IntercalationType.NORMAL;
+	private static final IntercalationType L = IntercalationType.LEAP;
+	
+	private static void compareWithCounting(IntercalationType[] cycle) {
+		var calculator = new CycleLeapCalculator( cycle );
+		int range = 3 * cycle.length + 2;
+		
+		long count = 0;
+		for(int year=1; year<=range; year++) {
+			calculator.setEraYear( BigInteger.valueOf( year ) );
+			if( calculator.isLeapYear() ) count++;
+			assertEquals( BigInteger.valueOf( count ), calculator.leapYearsUntil( BigInteger.valueOf( year ) ), "year " + year );
+		}
+		count = 0;
+		for(int year=0; year>=-range; year--) {
+			calculator.setEraYear( BigInteger.valueOf( year ) );
+			if( calculator.isLeapYear() ) count++;
+			assertEquals( BigInteger.valueOf( count ), calculator.leapYearsUntil( BigInteger.valueOf( year ) ), "year " + year );
+		}
+	}
+	
+	@Test
+	void counts_match_leap_years() {
+		compareWithCounting( new IntercalationType[]{ L } );
+		compareWithCounting( new IntercalationType[]{ N, N, N, L } );
+		compareWithCounting( new IntercalationType[]{ L, N, N, L, N, L, N } );
+		compareWithCounting( new Islamic( new MixedFraction( 29, 191, 360 ), 12 ).cycle );
+	}
+	
+	@Test
+	void big_years() {
+		var calculator = new CycleLeapCalculator( new IntercalationType[]{ N, N, N, L } );
+		var year = BigInteger.TEN.pow( 30 ).add( BigInteger.valueOf( 7 ) );
+		var expected = BigInteger.TEN.pow( 30 ).divide( BigInteger.valueOf( 4 ) ).add( BigInteger.ONE );
+		assertEquals( expected, calculator.leapYearsUntil( year ) );
+		// 8 - 10^30 .. 0, the year 0 is leap
+		assertEquals( expected.add( BigInteger.ONE ), calculator.leapYearsUntil( BigInteger.ONE.subtract( year ).add( BigInteger.ONE ) ) );
+	}
+}
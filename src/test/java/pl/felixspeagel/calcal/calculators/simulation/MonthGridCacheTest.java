@@ -0,0 +1,97 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.calculators.Gregorian;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthGridCacheTest {
+	
+	private static final MixedFraction YEAR = new MixedFraction( 365, 2425, 10000 );
+	private static final MixedFraction MONTH = new MixedFraction( 29, 191, 360 );
+	
+	private static SimulationEngine newEngine() {
+		return new SimulationEngine( new Gregorian( YEAR ).makeExampleCalendar( YEAR, MONTH, 12 ), 0, BigInteger.ZERO,
+				MONTH, YEAR, MixedFraction.ZERO, MixedFraction.ZERO );
+	}
+	
+	@Test
+	void back_and_forth_hits() {
+		var engine = newEngine();
+		var cache = new MonthGridCache( 4 );
+		var simulation = new Simulation( engine );
+		simulation.setEraYear( BigInteger.valueOf( 2024 ) );
+		simulation.gotoFirstMonth();
+		
+		var january = cache.get( simulation );
+		assertArrayEquals( simulation.getListOfDaysInTheMonth(), january );
+		simulation.gotoNextMonth();
+		cache.get( simulation );
+		simulation.gotoPreviousMonth();
+		assertSame( january, cache.get( simulation ) );
+		simulation.gotoNextMonth();
+		cache.get( simulation );
+		assertEquals( 2, cache.getMisses() );
+		assertEquals( 2, cache.getHits() );
+	}
+	
+	@Test
+	void least_recently_used_goes_out() {
+		var engine = newEngine();
+		var cache = new MonthGridCache( 3 );
+		var year = BigInteger.valueOf( 100 );
+		for(int month=0; month<3; month++) {
+			cache.get( engine, year, month );
+		}
+		cache.get( engine, year, 0 ); // now the month 1 is the oldest one
+		cache.get( engine, year, 3 );
+		assertEquals( 3, cache.size() );
+		assertTrue( cache.contains( engine, year, 0 ) );
+		assertFalse( cache.contains( engine, year, 1 ) );
+		assertTrue( cache.contains( engine, year, 2 ) );
+		assertTrue( cache.contains( engine, year, 3 ) );
+	}
+	
+	@Test
+	void prefetch_isnt_counted() {
+		var engine = newEngine();
+		var cache = new MonthGridCache( 2 );
+		var year = BigInteger.valueOf( 100 );
+		cache.prefetch( engine, year, 0 );
+		cache.prefetch( engine, year, 0 );
+		assertEquals( 0, cache.getMisses() );
+		assertEquals( 0, cache.getHits() );
+		
+		cache.get( engine, year, 0 );
+		assertEquals( 1, cache.getHits() );
+		// prefetching a month doesn't make it newer, so the month 0 goes out first
+		cache.prefetch( engine, year, 1 );
+		cache.prefetch( engine, year, 0 );
+		cache.prefetch( engine, year, 2 );
+		assertFalse( cache.contains( engine, year, 0 ) );
+		assertTrue( cache.contains( engine, year, 1 ) );
+		assertTrue( cache.contains( engine, year, 2 ) );
+		assertEquals( 0, cache.getMisses() );
+	}
+	
+	@Test
+	void new_settings_miss() {
+		var cache = new MonthGridCache( 8 );
+		var year = BigInteger.valueOf( 100 );
+		var old_engine = newEngine();
+		cache.get( old_engine, year, 5 );
+		
+		// the same settings made again are another engine
+		var new_engine = newEngine();
+		assertFalse( cache.contains( new_engine, year, 5 ) );
+		cache.get( new_engine, year, 5 );
+		assertEquals( 2, cache.getMisses() );
+		
+		cache.invalidate();
+		assertEquals( 0, cache.size() );
+		assertFalse( cache.contains( new_engine, year, 5 ) );
+	}
+}
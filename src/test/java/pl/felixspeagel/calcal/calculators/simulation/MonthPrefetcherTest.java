@@ -0,0 +1,98 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.calculators.MetonicCycle;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthPrefetcherTest {
+	
+	private static final MixedFraction YEAR = new MixedFraction( 365, 2425, 10000 );
+	private static final MixedFraction MONTH = new MixedFraction( 29, 191, 360 );
+	
+	@Test
+	void months_around_are_ready() throws InterruptedException {
+		var simulation = new Simulation( new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ),
+				0, BigInteger.ZERO, MONTH, YEAR, MixedFraction.ZERO, MixedFraction.ZERO );
+		simulation.setEraYear( BigInteger.valueOf( 500 ) );
+		simulation.gotoFirstMonth();
+		
+		var cache = new MonthGridCache( 32 );
+		var executor = Executors.newFixedThreadPool( 2 );
+		var prefetcher = new MonthPrefetcher( cache, 3, executor );
+		prefetcher.prefetchAround( simulation );
+		executor.shutdown();
+		assertTrue( executor.awaitTermination( 10, TimeUnit.SECONDS ) );
+		assertEquals( 2 * 3 + 2, cache.size() );
+		
+		// all the neighbours come from the cache now
+		var engine = simulation.getEngine();
+		var around = simulation.copy();
+		for(int i=0; i<3; i++) {
+			around.gotoNextMonth();
+			assertArrayEquals( around.getListOfDaysInTheMonth(), cache.get( around ) );
+		}
+		around = simulation.copy();
+		for(int i=0; i<3; i++) {
+			around.gotoPreviousMonth();
+			assertArrayEquals( around.getListOfDaysInTheMonth(), cache.get( around ) );
+		}
+		for(var year : new int[]{ 499, 501 }) {
+			assertTrue( cache.contains( engine, BigInteger.valueOf( year ), simulation.getMonth() ), "year " + year );
+		}
+		assertEquals( 6, cache.getHits() );
+		assertEquals( 0, cache.getMisses() );
+		assertFalse( cache.contains( engine, simulation.getEraYear(), simulation.getMonth() ) );
+	}
+	
+	@Test
+	void old_requests_are_dropped() throws InterruptedException {
+		var simulation = new Simulation( new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ),
+				0, BigInteger.ZERO, null, null, null, null );
+		var cache = new MonthGridCache( 64 );
+		// one thread, blocked until both requests are queued
+		var executor = Executors.newSingleThreadExecutor();
+		var gate = new Object();
+		synchronized( gate ) {
+			executor.execute( () -> {
+				synchronized( gate ) {
+					//just wait for the requests
+				}
+			} );
+			var prefetcher = new MonthPrefetcher( cache, 2, executor );
+			prefetcher.prefetchAround( simulation );
+			simulation.moveByYears( BigInteger.valueOf( 100 ) );
+			prefetcher.prefetchAround( simulation );
+		}
+		executor.shutdown();
+		assertTrue( executor.awaitTermination( 10, TimeUnit.SECONDS ) );
+		assertEquals( 2 * 2 + 2, cache.size() );
+		var next_year = simulation.copy();
+		next_year.moveByYears( BigInteger.ONE );
+		assertTrue( cache.contains( simulation.getEngine(), next_year.getEraYear(), next_year.getMonth() ) );
+	}
+	
+	@Test
+	void shutdown_releases_the_threads() throws InterruptedException {
+		var simulation = new Simulation( new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ),
+				0, BigInteger.ZERO, null, null, null, null );
+		var cache = new MonthGridCache( 64 );
+		var executor = Executors.newFixedThreadPool( 2 );
+		var prefetcher = new MonthPrefetcher( cache, 2, executor );
+		prefetcher.prefetchAround( simulation );
+		prefetcher.shutdown();
+		assertTrue( executor.isShutdown() );
+		assertTrue( executor.awaitTermination( 10, TimeUnit.SECONDS ) );
+		
+		// a late move changes nothing
+		cache.invalidate();
+		simulation.gotoNextMonth();
+		prefetcher.prefetchAround( simulation );
+		assertEquals( 0, cache.size() );
+	}
+}
@@ -0,0 +1,136 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseEventFinderTest {
+	
+	/**
+	 * Walks the days with the calculator and checks every event found on the way.
+	 */
+	private static void compareWithWalking(MixedFraction month_length, MixedFraction year_length,
+	                                       MixedFraction month_shift, MixedFraction year_shift,
+	                                       BigInteger first_day, int days) {
+		var calculator = new TrueRealsCalculator( month_length, year_length, month_shift, year_shift );
+		var moon = PhaseEventFinder.ofMoon( month_length, month_shift );
+		var seasons = PhaseEventFinder.ofSeasons( year_length, year_shift );
+		var last_day = first_day.add( BigInteger.valueOf( days ) );
+		
+		var walked_moons = new ArrayList<List<BigInteger>>();
+		for(var ignored : MoonPhase.values()) walked_moons.add( new ArrayList<>() );
+		var walked_seasons = new ArrayList<List<BigInteger>>();
+		for(var ignored : Season.values()) walked_seasons.add( new ArrayList<>() );
+		
+		calculator.setDaysSoFar( first_day );
+		for(int i=0; i<days; i++) {
+			var day = first_day.add( BigInteger.valueOf( i ) );
+			if( calculator.getBorderMoon() != null ) walked_moons.get( calculator.getBorderMoon().ordinal() ).add( day );
+			if( calculator.getBorderSeason() != null ) walked_seasons.get( calculator.getBorderSeason().ordinal() ).add( day );
+			calculator.moveToNextDay();
+		}
+		
+		for(var phase : MoonPhase.values()) {
+			var found = new ArrayList<BigInteger>();
+			moon.events( phase, first_day, last_day ).forEach( found::add );
+			assertEquals( walked_moons.get( phase.ordinal() ), found, phase.toString() );
+			checkNextAndPrevious( moon, phase, found );
+		}
+		for(var season : Season.values()) {
+			var found = new ArrayList<BigInteger>();
+			seasons.events( season, first_day, last_day ).forEach( found::add );
+			assertEquals( walked_seasons.get( season.ordinal() ), found, season.toString() );
+			checkNextAndPrevious( seasons, season, found );
+		}
+	}
+	
+	private static <T extends Enum<T>> void checkNextAndPrevious(PhaseEventFinder<T> finder, T kind, List<BigInteger> events) {
+		for(int i=0; i+1<events.size(); i++) {
+			var event = events.get( i );
+			var following = events.get( i + 1 );
+			assertEquals( event, finder.nextEvent( kind, event ) );
+			assertEquals( following, finder.nextEvent( kind, event.add( BigInteger.ONE ) ) );
+			assertEquals( following, finder.previousEvent( kind, following ) );
+			assertEquals( event, finder.previousEvent( kind, following.subtract( BigInteger.ONE ) ) );
+		}
+	}
+	
+	@Test
+	void events_match_walking() {
+		var synodic = new MixedFraction( 29, 191, 360 );
+		var tropical = new MixedFraction( 365, 2422, 10000 );
+		compareWithWalking( synodic, tropical, MixedFraction.ZERO, MixedFraction.ZERO, BigInteger.ZERO, 3000 );
+		compareWithWalking( synodic, tropical, new MixedFraction( 3, 1, 3 ), new MixedFraction( -80, 1, 4 ), BigInteger.valueOf( -2000 ), 4000 );
+		compareWithWalking( new MixedFraction( 16 ), new MixedFraction( 364 ), new MixedFraction( 2 ), new MixedFraction( 91 ), BigInteger.valueOf( -800 ), 1600 );
+		compareWithWalking( synodic, tropical, MixedFraction.ONE_HALF, MixedFraction.ONE_HALF, BigInteger.TEN.pow( 30 ), 2000 );
+		// parts shorter than a day, some phases are skipped in some months
+		compareWithWalking( new MixedFraction( 5, 1, 3 ), new MixedFraction( 3, 1, 2 ), MixedFraction.ZERO, MixedFraction.ZERO, BigInteger.valueOf( -100 ), 300 );
+	}
+	
+	@Test
+	void never_beginning_phases() {
+		// a moon of a whole day is always in the same phase
+		var moon = PhaseEventFinder.ofMoon( MixedFraction.ONE, MixedFraction.ZERO );
+		assertNull( moon.nextEvent( MoonPhase.NEW_MOON, BigInteger.ZERO ) );
+		assertNull( moon.previousEvent( MoonPhase.FULL_MOON, BigInteger.ZERO ) );
+		assertFalse( moon.events( MoonPhase.NEW_MOON, BigInteger.ZERO, BigInteger.TEN ).iterator().hasNext() );
+		
+		// a moon of 3/1000000007 days has three positions, so the last phase never begins;
+		// searching for it period by period would take a billion periods
+		var fast_moon = PhaseEventFinder.ofMoon( new MixedFraction( 0, 3, 1000000007 ), MixedFraction.ZERO );
+		var last_phase = MoonPhase.values()[MoonPhase.values().length - 1];
+		assertTimeoutPreemptively( Duration.ofSeconds( 1 ), () -> {
+			assertNull( fast_moon.nextEvent( last_phase, BigInteger.ZERO ) );
+			assertNull( fast_moon.previousEvent( last_phase, BigInteger.ZERO ) );
+		} );
+		assertNotNull( fast_moon.nextEvent( MoonPhase.values()[0], BigInteger.ZERO ) );
+	}
+	
+	@Test
+	void never_beginning_matches_walking() {
+		// short periods with shifts, so that some parts hold no position a day reaches
+		for(int p=1; p<=12; p++) {
+			for(int q=1; q<=6; q++) {
+				for(int t=1; t<=3; t++) {
+					var period = new MixedFraction( 0, p, q );
+					var shift = new MixedFraction( 0, 1, t );
+					var moon = PhaseEventFinder.ofMoon( period, shift );
+					var calculator = new TrueRealsCalculator( period, period, shift, shift );
+					var begins = new boolean[MoonPhase.values().length];
+					calculator.setDaysSoFar( BigInteger.ZERO );
+					// the events repeat after p*t days at most
+					for(int day=0; day<=2*p*t+1; day++) {
+						if( calculator.getBorderMoon() != null ) begins[calculator.getBorderMoon().ordinal()] = true;
+						calculator.moveToNextDay();
+					}
+					for(var phase : MoonPhase.values()) {
+						var found = moon.nextEvent( phase, BigInteger.ZERO );
+						assertEquals( begins[phase.ordinal()], found != null, p + "/" + q + " " + shift + " " + phase );
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	void full_moons_of_a_thousand_years() {
+		var moon = PhaseEventFinder.ofMoon( new MixedFraction( 29, 191, 360 ), MixedFraction.ZERO );
+		int count = 0;
+		BigInteger last = null;
+		for(var day : moon.events( MoonPhase.FULL_MOON, BigInteger.ZERO, BigInteger.valueOf( 365_242 ) )) {
+			if( last != null ) {
+				var gap = day.subtract( last ).intValueExact();
+				assertTrue( gap == 29 || gap == 30, "gap " + gap );
+			}
+			last = day;
+			count++;
+		}
+		assertEquals( 12368, count );
+	}
+}
@@ -0,0 +1,157 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.calculators.IntercalationType;
+import pl.felixspeagel.calcal.calculators.Rule;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RulesLeapCalculatorTest {
+	
+	private static Rule leap(int divisor) {
+		return new Rule( BigInteger.valueOf( divisor ), IntercalationType.LEAP );
+	}
+	private static Rule normal(int divisor) {
+		return new Rule( BigInteger.valueOf( divisor ), IntercalationType.NORMAL );
+	}
+	
+	/**
+	 * Counts the leap years one by one with isLeapYear and compares with leapYearsUntil.
+	 */
+	private static void compareWithCounting(Rule[] rules, int range) {
+		var calculator = new RulesLeapCalculator( rules );
+		long count = 0;
+		for(int year=1; year<=range; year++) {
+			calculator.setEraYear( BigInteger.valueOf( year ) );
+			if( calculator.isLeapYear() ) count++;
+			assertEquals( BigInteger.valueOf( count ), calculator.leapYearsUntil( BigInteger.valueOf( year ) ), "year " + year );
+		}
+		count = 0;
+		for(int year=0; year>=-range; year--) {
+			calculator.setEraYear( BigInteger.valueOf( year ) );
+			if( calculator.isLeapYear() ) count++;
+			assertEquals( BigInteger.valueOf( count ), calculator.leapYearsUntil( BigInteger.valueOf( year ) ), "year " + year );
+		}
+	}
+	
+	@Test
+	void gregorian_rules() {
+		compareWithCounting( new Rule[]{ leap( 4 ), normal( 100 ), leap( 400 ) }, 2000 );
+		
+		var calculator = new RulesLeapCalculator( new Rule[]{ leap( 4 ), normal( 100 ), leap( 400 ) } );
+		assertEquals( BigInteger.valueOf( 485 ), calculator.leapYearsUntil( BigInteger.valueOf( 2000 ) ) );
+		var big_year = BigInteger.TEN.pow( 40 );
+		var expected = big_year.divide( BigInteger.valueOf( 4 ) )
+				.subtract( big_year.divide( BigInteger.valueOf( 100 ) ) )
+				.add( big_year.divide( BigInteger.valueOf( 400 ) ) );
+		assertEquals( expected, calculator.leapYearsUntil( big_year ) );
+	}
+	
+	@Test
+	void rules_switched_off() {
+		// the middle rule switched off
+		compareWithCounting( new Rule[]{ leap( 4 ), leap( 400 ) }, 1000 );
+		// not nested divisors
+		compareWithCounting( new Rule[]{ leap( 4 ), normal( 6 ), leap( 9 ) }, 500 );
+		// a later rule covering an earlier one
+		compareWithCounting( new Rule[]{ leap( 6 ), normal( 3 ) }, 100 );
+		compareWithCounting( new Rule[0], 10 );
+	}
+	
+	@Test
+	void long_period_rules() {
+		// too long for the bitmap, counted with the compiled terms
+		compareWithCounting( new Rule[]{ leap( 1009 ), normal( 1013 ), leap( 1019 ), normal( 3 ) }, 5000 );
+	}
+	
+	@Test
+	void many_rules() {
+		// divisors of 720720 keep the period short enough for the bitmap
+		var random = new Random( 20240303 );
+		var rules = new Rule[40];
+		for(int i=0; i<rules.length; i++) {
+			int divisor;
+			do {
+				divisor = 1 + random.nextInt( 5000 );
+			} while( 720720 % divisor != 0 );
+			rules[i] = i % 2 == 0 ? leap( divisor ) : normal( divisor );
+		}
+		compareWithCounting( rules, 3000 );
+		
+		// up to 2^40 terms, so neither the bitmap nor the terms
+		var coprime = new Rule[40];
+		for(int i=0; i<coprime.length; i++) {
+			coprime[i] = i % 2 == 0 ? leap( i + 2 ) : normal( i + 2 );
+		}
+		var calculator = new RulesLeapCalculator( coprime );
+		long count = 0;
+		for(int year=1; year<=3000; year++) {
+			calculator.setEraYear( BigInteger.valueOf( year ) );
+			if( calculator.isLeapYear() ) count++;
+			if( year % 101 == 0 ) {
+				var year_count = BigInteger.valueOf( count );
+				var until = BigInteger.valueOf( year );
+				assertEquals( year_count, assertTimeoutPreemptively( Duration.ofSeconds( 1 ), () -> calculator.leapYearsUntil( until ) ) );
+			}
+		}
+	}
+	
+	@Test
+	void random_rule_sets() {
+		var random = new Random( 20240101 );
+		for(int test=0; test<200; test++) {
+			var rules = new Rule[1 + random.nextInt( 6 )];
+			for(int i=0; i<rules.length; i++) {
+				int divisor = 1 + random.nextInt( 40 );
+				rules[i] = random.nextBoolean() ? leap( divisor ) : normal( divisor );
+			}
+			compareWithCounting( rules, 300 );
+		}
+	}
+	
+	/**
+	 * The last rule which divides the year decides.
+	 */
+	private static boolean referenceIsLeap(Rule[] rules, BigInteger year) {
+		var is_leap = false;
+		for(var rule : rules) {
+			if( year.remainder( rule.each_year() ).signum() == 0 ) {
+				is_leap = rule.is_leap() == IntercalationType.LEAP;
+			}
+		}
+		return is_leap;
+	}
+	
+	@Test
+	void compiled_leap_test() {
+		var random = new Random( 20240202 );
+		var huge = BigInteger.TEN.pow( 30 );
+		for(int test=0; test<100; test++) {
+			// small divisors go to the bitmap, big ones make the period too long for it
+			int bound = test % 2 == 0 ? 50 : 10_000_000;
+			var rules = new Rule[1 + random.nextInt( 5 )];
+			for(int i=0; i<rules.length; i++) {
+				int divisor = 1 + random.nextInt( bound );
+				rules[i] = random.nextBoolean() ? leap( divisor ) : normal( divisor );
+			}
+			var calculator = new RulesLeapCalculator( rules );
+			for(int i=0; i<200; i++) {
+				var year = BigInteger.valueOf( random.nextLong() % 1_000_000_000_000L );
+				if( i % 4 == 0 ) {
+					// a multiple of the first divisor, or the year would hardly ever match a rule
+					year = year.divide( BigInteger.valueOf( bound ) ).multiply( rules[0].each_year() );
+				}
+				if( i % 10 == 0 ) {
+					year = year.multiply( huge );
+				}
+				assertEquals( referenceIsLeap( rules, year ), calculator.isLeapYear( year ), year.toString() );
+				calculator.setEraYear( year );
+				assertEquals( referenceIsLeap( rules, year ), calculator.isLeapYear(), year.toString() );
+			}
+		}
+	}
+}
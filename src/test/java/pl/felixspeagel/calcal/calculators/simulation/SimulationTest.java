@@ -0,0 +1,290 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.calculators.Gregorian;
+import pl.felixspeagel.calcal.calculators.Islamic;
+import pl.felixspeagel.calcal.calculators.MetonicCycle;
+import pl.felixspeagel.calcal.calendar.Calendar;
+import pl.felixspeagel.calcal.calendar.CompiledCalendar;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationTest {
+	
+	private static final MixedFraction YEAR = new MixedFraction( 365, 2425, 10000 );
+	private static final MixedFraction MONTH = new MixedFraction( 29, 191, 360 );
+	
+	/**
+	 * Walks month by month from the given year on and checks that each month starts
+	 * on the week day after the last day of the previous one.
+	 */
+	private static void checkWeekDaysContinue(Calendar calendar, int from_year, int months) {
+		var simulation = new Simulation( calendar, 3, BigInteger.ZERO, null, null, null, null );
+		simulation.setEraYear( BigInteger.valueOf( from_year ) );
+		simulation.gotoFirstMonth();
+		
+		int week_length = simulation.getWeekLength();
+		int expected_first_day = -1;
+		for(int i=0; i<months; i++) {
+			var weeks = simulation.getListOfDaysInTheMonth();
+			int first_day = 0;
+			while( weeks[0][first_day] == null ) first_day++;
+			int last_day = week_length - 1;
+			while( weeks[weeks.length - 1][last_day] == null ) last_day--;
+			
+			if( expected_first_day >= 0 ) {
+				assertEquals( expected_first_day, first_day, "year " + simulation.getEraYear() + " month " + simulation.getMonthName() );
+			}
+			expected_first_day = ( last_day + 1 ) % week_length;
+			simulation.gotoNextMonth();
+		}
+	}
+	
+	@Test
+	void week_days_across_year_zero() {
+		checkWeekDaysContinue( new Gregorian( YEAR ).makeExampleCalendar( YEAR, MONTH, 12 ), -410, 12 * 820 );
+		checkWeekDaysContinue( new Islamic( MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ), -40, 12 * 80 );
+		checkWeekDaysContinue( new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ), -40, 13 * 80 );
+	}
+	
+	/**
+	 * Goes through every day of the years and checks that the day numbers follow each other
+	 * and convert back into the same dates.
+	 */
+	private static void checkDayNumbers(Calendar calendar, int from_year, int to_year, int epoch) {
+		var simulation = new Simulation( calendar, 0, BigInteger.valueOf( epoch ), null, null, null, null );
+		BigInteger expected = null;
+		for(int year=from_year; year<=to_year; year++) {
+			var era_year = BigInteger.valueOf( year );
+			simulation.setEraYear( era_year );
+			simulation.gotoFirstMonth();
+			while( simulation.getEraYear().equals( era_year ) ) {
+				int month = simulation.getMonth();
+				int days = 0;
+				for(var week : simulation.getListOfDaysInTheMonth()) {
+					for(var day : week) {
+						if( day != null ) days++;
+					}
+				}
+				for(int day=1; day<=days; day++) {
+					var date = new SimulationDate( era_year, month, day );
+					var day_number = simulation.getEngine().toDayNumber( date );
+					if( expected != null ) {
+						assertEquals( expected, day_number, date.toString() );
+					}
+					assertEquals( date, simulation.getEngine().fromDayNumber( day_number ) );
+					expected = day_number.add( BigInteger.ONE );
+				}
+				simulation.gotoNextMonth();
+			}
+		}
+	}
+	
+	@Test
+	void day_numbers() {
+		var gregorian = new Gregorian( YEAR ).makeExampleCalendar( YEAR, MONTH, 12 );
+		checkDayNumbers( gregorian, -102, 102, 0 );
+		checkDayNumbers( new Islamic( MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ), -35, 35, 0 );
+		checkDayNumbers( new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ), -20, 20, 622 - 20 );
+		
+		var simulation = new Simulation( gregorian, 0, BigInteger.ZERO, null, null, null, null );
+		assertEquals( BigInteger.ZERO, simulation.getEngine().toDayNumber( BigInteger.ONE, 0, 1 ) );
+		assertEquals( BigInteger.valueOf( -1 ), simulation.getEngine().toDayNumber( BigInteger.ZERO, 11, 31 ) );
+		assertEquals( BigInteger.valueOf( 146097 ), simulation.getEngine().toDayNumber( BigInteger.valueOf( 401 ), 0, 1 ) );
+		
+		var far = new SimulationDate( BigInteger.TEN.pow( 20 ), 5, 17 );
+		assertEquals( far, simulation.getEngine().fromDayNumber( simulation.getEngine().toDayNumber( far ) ) );
+		far = new SimulationDate( BigInteger.TEN.pow( 20 ).negate(), 11, 31 );
+		assertEquals( far, simulation.getEngine().fromDayNumber( simulation.getEngine().toDayNumber( far ) ) );
+		
+		var date = new SimulationDate( BigInteger.valueOf( 2000 ), 1, 28 );
+		var later = simulation.getEngine().addDays( date, BigInteger.valueOf( 366 ) );
+		assertEquals( BigInteger.valueOf( 366 ), simulation.getEngine().daysBetween( date, later ) );
+		assertEquals( date, simulation.getEngine().addDays( later, BigInteger.valueOf( -366 ) ) );
+		
+		assertThrows( IllegalArgumentException.class, () -> simulation.getEngine().toDayNumber( BigInteger.ONE, 12, 1 ) );
+		assertThrows( IllegalArgumentException.class, () -> simulation.getEngine().toDayNumber( BigInteger.ONE, 0, 0 ) );
+		assertThrows( IllegalArgumentException.class, () -> simulation.getEngine().toDayNumber( BigInteger.ONE, 0, 32 ) );
+	}
+	
+	@Test
+	void year_grid_matches_months() {
+		var calendars = new Calendar[]{
+				new Gregorian( YEAR ).makeExampleCalendar( YEAR, MONTH, 12 ),
+				new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 )
+		};
+		for(var calendar : calendars) {
+			var simulation = new Simulation( calendar, 2, BigInteger.valueOf( 100 ),
+					MONTH, YEAR, new MixedFraction( 3, 1, 2 ), new MixedFraction( 40 ) );
+			for(int year=-25; year<=25; year++) {
+				var era_year = BigInteger.valueOf( year );
+				simulation.setEraYear( era_year );
+				simulation.gotoFirstMonth();
+				var months = simulation.getListOfMonthsInTheYear();
+				
+				for(var month : months) {
+					assertEquals( era_year, simulation.getEraYear() );
+					assertEquals( simulation.getMonth(), month.month() );
+					assertEquals( simulation.getMonthName(), month.name() );
+					assertEquals( simulation.getMonthFeature(), month.feature() );
+					assertArrayEquals( simulation.getListOfDaysInTheMonth(), month.weeks() );
+					simulation.gotoNextMonth();
+				}
+				assertNotEquals( era_year, simulation.getEraYear() );
+			}
+		}
+	}
+	
+	@Test
+	void jump_navigation() {
+		var calendars = new Calendar[]{
+				new Gregorian( YEAR ).makeExampleCalendar( YEAR, MONTH, 12 ),
+				new Islamic( MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ),
+				new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 )
+		};
+		for(var calendar : calendars) {
+			var walking = new Simulation( calendar, 0, BigInteger.valueOf( 7 ), null, null, null, null );
+			var jumping = walking.copy();
+			walking.setEraYear( BigInteger.valueOf( -60 ) );
+			walking.gotoFirstMonth();
+			var start = walking.getMonthsSinceEpoch();
+			
+			for(int i=0; i<1500; i++) {
+				assertEquals( start.add( BigInteger.valueOf( i ) ), walking.getMonthsSinceEpoch() );
+				
+				jumping.gotoMonthSinceEpoch( start.add( BigInteger.valueOf( i ) ) );
+				assertEquals( walking.getEraYear(), jumping.getEraYear() );
+				assertEquals( walking.getMonth(), jumping.getMonth() );
+				
+				var first_day = walking.getEngine().toDayNumber( walking.getEraYear(), walking.getMonth(), 1 );
+				jumping.gotoMonthOfDay( first_day.add( BigInteger.valueOf( 5 ) ) );
+				assertEquals( walking.getEraYear(), jumping.getEraYear() );
+				assertEquals( walking.getMonth(), jumping.getMonth() );
+				assertArrayEquals( walking.getListOfDaysInTheMonth(), jumping.getListOfDaysInTheMonth() );
+				
+				walking.gotoNextMonth();
+			}
+			
+			// and back again
+			jumping.moveByMonths( BigInteger.valueOf( -1499 ) );
+			for(int i=0; i<1500; i++) {
+				walking.gotoPreviousMonth();
+			}
+			assertEquals( walking.getEraYear(), jumping.getEraYear() );
+			assertEquals( walking.getMonth(), jumping.getMonth() );
+			
+			var far = BigInteger.TEN.pow( 15 );
+			jumping.moveByMonths( far );
+			jumping.moveByMonths( far.negate() );
+			assertEquals( walking.getEraYear(), jumping.getEraYear() );
+			assertEquals( walking.getMonth(), jumping.getMonth() );
+			
+			jumping.moveByYears( BigInteger.valueOf( 1000 ) );
+			assertEquals( walking.getEraYear().add( BigInteger.valueOf( 1000 ) ), jumping.getEraYear() );
+		}
+	}
+	
+	@Test
+	void years_with_leading_leap_month() {
+		var calendar = new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 );
+		calendar.getYear().setFeatureMonth( 0 );
+		var simulation = new Simulation( calendar, 0, BigInteger.ZERO, null, null, null, null );
+		var engine = simulation.getEngine();
+		
+		int checked = 0;
+		for(int year=1; year<40; year++) {
+			var era_year = BigInteger.valueOf( year );
+			if( ! engine.isLeapYear( era_year ) ) continue;
+			for(int step : new int[]{ -1, 1 }) {
+				var other_year = era_year.add( BigInteger.valueOf( step ) );
+				if( engine.isLeapYear( other_year ) ) continue;
+				simulation.setEraYear( era_year );
+				simulation.gotoFirstMonth();
+				assertEquals( 0, simulation.getMonth() );
+				
+				simulation.moveByYears( BigInteger.valueOf( step ) );
+				assertEquals( other_year, simulation.getEraYear() );
+				assertEquals( 1, simulation.getMonth() );
+				checked++;
+			}
+		}
+		assertTrue( checked > 0 );
+	}
+	
+	@Test
+	void day_stream_matches_grids() {
+		var calendars = new Calendar[]{
+				new Gregorian( YEAR ).makeExampleCalendar( YEAR, MONTH, 12 ),
+				new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 )
+		};
+		for(var calendar : calendars) {
+			var simulation = new Simulation( calendar, 2, BigInteger.valueOf( 100 ),
+					MONTH, YEAR, new MixedFraction( 3, 1, 2 ), new MixedFraction( 40 ) );
+			var compiled = new CompiledCalendar( calendar );
+			var from = BigInteger.valueOf( 70 );
+			var to = BigInteger.valueOf( 140 );
+			
+			var expected = new ArrayList<SimulationDay>();
+			for(var year=from; year.compareTo( to ) < 0; year=year.add( BigInteger.ONE )) {
+				simulation.setEraYear( year );
+				var year_length = simulation.getEngine().toDayNumber( year.add( BigInteger.ONE ), 0, 1 ).subtract( simulation.getEngine().toDayNumber( year, 0, 1 ) );
+				boolean is_leap = year_length.intValueExact() == compiled.getDaysInYear( true );
+				for(var month : simulation.getListOfMonthsInTheYear()) {
+					for(var week : month.weeks()) {
+						for(int week_day=0; week_day<week.length; week_day++) {
+							var day = week[week_day];
+							if( day == null ) continue;
+							var date = new SimulationDate( year, month.month(), day.number() );
+							expected.add( new SimulationDay( simulation.getEngine().toDayNumber( date ), date, week_day, is_leap,
+									day.moon_phase(), day.season() ) );
+						}
+					}
+				}
+			}
+			
+			var spliterator = simulation.getEngine().daySpliterator( from, to );
+			assertTrue( spliterator.hasCharacteristics( Spliterator.SIZED ) );
+			assertEquals( expected.size(), spliterator.estimateSize() );
+			assertEquals( expected, simulation.getEngine().streamOfDays( from, to ).toList() );
+			assertEquals( expected, simulation.getEngine().streamOfDays( from, to ).parallel().toList() );
+		}
+	}
+	
+	@Test
+	void engine_shared_between_threads() throws Exception {
+		var engine = new SimulationEngine( new MetonicCycle( YEAR, MONTH, 12 ).makeExampleCalendar( YEAR, MONTH, 12 ), 1, BigInteger.ZERO,
+				MONTH, YEAR, new MixedFraction( 3, 1, 2 ), new MixedFraction( 40 ) );
+		var first = engine.getMonthsSinceEpoch( BigInteger.valueOf( -50 ), 0 );
+		int months = 1200;
+		
+		var expected = new ArrayList<DayInMonth[][]>();
+		var cursor = new Simulation( engine );
+		cursor.gotoMonthSinceEpoch( first );
+		for(int i=0; i<months; i++) {
+			expected.add( cursor.getListOfDaysInTheMonth() );
+			cursor.gotoNextMonth();
+		}
+		
+		var tasks = new ArrayList<Callable<DayInMonth[][]>>();
+		for(int i=0; i<months; i++) {
+			var date = engine.fromMonthsSinceEpoch( first.add( BigInteger.valueOf( i ) ) );
+			tasks.add( () -> engine.getListOfDaysInTheMonth( date.era_year(), date.month() ) );
+		}
+		var executor = Executors.newFixedThreadPool( 4 );
+		try {
+			var results = executor.invokeAll( tasks );
+			for(int i=0; i<months; i++) {
+				assertArrayEquals( expected.get( i ), results.get( i ).get(), "month " + i );
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
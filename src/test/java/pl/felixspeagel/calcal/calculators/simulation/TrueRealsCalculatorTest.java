@@ -0,0 +1,72 @@
+package pl.felixspeagel.calcal.calculators.simulation;
+
+import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrueRealsCalculatorTest {
+	
+	/**
+	 * The part of the period the day is in, straight from the definition: floor( frac( (day - shift) / length ) * parts ).
+	 */
+	private static int partOf(BigInteger day, MixedFraction length, MixedFraction shift, int parts) {
+		var position = new MixedFraction( day ).subtract( shift ).divide( length );
+		var fraction = position.subtract( new MixedFraction( position.floor() ) );
+		return fraction.multiply( parts ).floor().intValueExact();
+	}
+	
+	private static void compareWithFractions(MixedFraction month_length, MixedFraction year_length,
+	                                         MixedFraction month_shift, MixedFraction year_shift,
+	                                         BigInteger first_day, int days) {
+		var calculator = new TrueRealsCalculator( month_length, year_length, month_shift, year_shift );
+		calculator.setDaysSoFar( first_day );
+		for(int i=0; i<days; i++) {
+			var day = first_day.add( BigInteger.valueOf( i ) );
+			var before = day.subtract( BigInteger.ONE );
+			
+			int moon = partOf( day, month_length, month_shift, 8 );
+			var border_moon = moon != partOf( before, month_length, month_shift, 8 ) ? MoonPhase.values()[moon] : null;
+			assertEquals( border_moon, calculator.getBorderMoon(), "moon on day " + day );
+			
+			int season = partOf( day, year_length, year_shift, 4 );
+			var border_season = season != partOf( before, year_length, year_shift, 4 ) ? Season.values()[season] : null;
+			assertEquals( border_season, calculator.getBorderSeason(), "season on day " + day );
+			
+			calculator.moveToNextDay();
+		}
+	}
+	
+	@Test
+	void borders_match_fractions() {
+		var synodic = new MixedFraction( 29, 191, 360 );
+		var tropical = new MixedFraction( 365, 2422, 10000 );
+		compareWithFractions( synodic, tropical, MixedFraction.ZERO, MixedFraction.ZERO, BigInteger.ZERO, 2000 );
+		compareWithFractions( synodic, tropical, new MixedFraction( 3, 1, 3 ), new MixedFraction( -80, 1, 4 ), BigInteger.valueOf( -1500 ), 3000 );
+		// exact borders: a whole number of days per phase
+		compareWithFractions( new MixedFraction( 16 ), new MixedFraction( 364 ), new MixedFraction( 2 ), new MixedFraction( 91 ), BigInteger.valueOf( -800 ), 1600 );
+		// too big for the long path
+		var huge = new MixedFraction( BigInteger.valueOf( 29 ), BigInteger.ONE, BigInteger.TWO.pow( 70 ).add( BigInteger.ONE ) );
+		compareWithFractions( huge, tropical, new MixedFraction( 1, 7 ), MixedFraction.ZERO, BigInteger.valueOf( 10 ).pow( 12 ), 500 );
+	}
+	
+	@Test
+	void borders_far_from_epoch() {
+		var synodic = new MixedFraction( 29, 191, 360 );
+		var tropical = new MixedFraction( 365, 2422, 10000 );
+		var shift = new MixedFraction( 7, 2, 9 );
+		for(var day : new BigInteger[]{
+				BigInteger.valueOf( Long.MAX_VALUE - 100 ),
+				BigInteger.valueOf( Long.MIN_VALUE ),
+				BigInteger.TEN.pow( 40 ),
+				BigInteger.TEN.pow( 40 ).negate().add( BigInteger.valueOf( 12345 ) ),
+		}) {
+			compareWithFractions( synodic, tropical, shift, shift.negate(), day, 400 );
+		}
+		// the long product of the day in the period and the step can overflow
+		var long_period = new MixedFraction( BigInteger.valueOf( 29 ), BigInteger.valueOf( 1_000_000_007L ), BigInteger.valueOf( 2_000_000_011L ) );
+		compareWithFractions( long_period, tropical, new MixedFraction( 1, 3 ), shift, BigInteger.TEN.pow( 25 ), 400 );
+	}
+}
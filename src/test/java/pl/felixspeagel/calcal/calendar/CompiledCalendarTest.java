@@ -0,0 +1,60 @@
+package pl.felixspeagel.calcal.calendar;
+
+import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.calculators.IntercalationType;
+import pl.felixspeagel.calcal.calculators.Rule;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledCalendarTest {
+	
+	@Test
+	void month_tables() {
+		var calendar = new Calendar( SpecialFeature.LEAP );
+		calendar.getYear().addMonth( "A", 30, 0 );
+		calendar.getYear().addMonth( "B", 29, 1 );
+		calendar.getYear().addMonth( "Leap", 30, 0 );
+		calendar.getYear().setFeatureMonth( 2 );
+		calendar.setupCycle( new IntercalationType[]{ IntercalationType.NORMAL, IntercalationType.LEAP } );
+		
+		var compiled = new CompiledCalendar( calendar );
+		assertEquals( 3, compiled.getMonthCount() );
+		assertEquals( 2, compiled.getLeapMonthIndex() );
+		assertTrue( compiled.isLeapMonth( 2 ) );
+		assertFalse( compiled.isLeapMonth( 1 ) );
+		
+		assertEquals( 0, compiled.getDaysInMonth( 2, false ) );
+		assertEquals( 30, compiled.getDaysInMonth( 2, true ) );
+		assertEquals( 30, compiled.getDaysInMonth( 1, true ) );
+		assertEquals( 30, compiled.getDaysBeforeMonth( 1, false ) );
+		assertEquals( 60, compiled.getDaysBeforeMonth( 2, true ) );
+		assertEquals( 59, compiled.getDaysInYear( false ) );
+		assertEquals( 90, compiled.getDaysInYear( true ) );
+	}
+	
+	@Test
+	void snapshot_is_frozen() {
+		var calendar = new Calendar( SpecialFeature.NONE );
+		calendar.getYear().addMonth( "A", 30, 1 );
+		calendar.setupLeapRules( new Rule[]{
+				new Rule( BigInteger.valueOf( 4 ), IntercalationType.LEAP ),
+				new Rule( BigInteger.valueOf( 100 ), IntercalationType.NORMAL )
+		} );
+		calendar.switchRule( 1, false );
+		
+		var compiled = new CompiledCalendar( calendar );
+		calendar.getYear().getMonth( 0 ).normal_days = 10;
+		calendar.getYear().getMonth( 0 ).name = "B";
+		calendar.switchRule( 1, true );
+		
+		assertEquals( 30, compiled.getDaysInYear( false ) );
+		assertEquals( "A", compiled.getMonthName( 0 ) );
+		assertEquals( 1, compiled.getActiveRules().length );
+		assertEquals( -1, compiled.getLeapMonthIndex() );
+		
+		compiled.getMonth( 0 ).normal_days = 5;
+		assertEquals( 30, compiled.getDaysInMonth( 0, false ) );
+	}
+}
@@ -1,6 +1,9 @@
 package pl.felixspeagel.calcal.controllers;
 
 import org.junit.jupiter.api.Test;
+import pl.felixspeagel.calcal.math.MixedFraction;
+
+import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -67,4 +70,36 @@ class YearMonthLengthInputTest {
 		tested.setText( "123" );
 		assertFalse( tested.inErrorState() );
 	}
+	
+	@Test
+	public void approximation_mode() {
+		Locale.setDefault( Locale.ROOT );
+		var input = new YearMonthLengthInput();
+		input.getYearInput().setText( "365.24219(0527)" );
+		input.getMonthInput().setText( "29.530589" );
+		assertFalse( input.inErrorState() );
+		assertNull( input.getMaxDenominator() );
+		assertEquals( input.getYearInput().getStoredValue(), input.getFinalInput().year() );
+		assertTrue( input.getYearErrorInSeconds().isZero() );
+		
+		input.enterMaxDenominatorText( "wrong" );
+		assertTrue( input.inErrorState() );
+		input.enterMaxDenominatorText( "0" );
+		assertTrue( input.inErrorState() );
+		
+		input.enterMaxDenominatorText( "128" );
+		assertFalse( input.inErrorState() );
+		var data = input.getFinalInput();
+		assertEquals( new MixedFraction( 365, 31, 128 ), data.year() );
+		assertTrue( data.month().getDenominator().intValue() <= 128 );
+		assertEquals( 12, data.months_in_year() );
+		// 365 31/128 is about a second off
+		var error = input.getYearErrorInSeconds();
+		assertTrue( error.compareTo( new MixedFraction( 2 ) ) < 0 && ! error.isZero() );
+		assertTrue( input.getMonthErrorInSeconds().compareTo( new MixedFraction( 60 ) ) < 0 );
+		
+		input.enterMaxDenominatorText( "" );
+		assertNull( input.getMaxDenominator() );
+		assertEquals( input.getYearInput().getStoredValue(), input.getFinalInput().year() );
+	}
 }
\ No newline at end of file
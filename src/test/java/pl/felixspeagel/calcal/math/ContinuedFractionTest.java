@@ -0,0 +1,100 @@
+package pl.felixspeagel.calcal.math;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContinuedFractionTest {
+	
+	private static List<BigInteger> list(long... terms) {
+		return Arrays.stream( terms ).mapToObj( BigInteger::valueOf ).toList();
+	}
+	
+	@Test
+	public void knownTerms() {
+		// 365.2425 = [365; 4, 8, 12]
+		assertEquals( list( 365, 4, 8, 12 ), ContinuedFraction.terms( new MixedFraction( 365, 97, 400 ) ) );
+		// 29 191/360 = [29; 1, 1, 7, 1, 2, 7]
+		assertEquals( list( 29, 1, 1, 7, 1, 2, 7 ), ContinuedFraction.terms( new MixedFraction( 29, 191, 360 ) ) );
+		// -7/3 = [-3; 1, 2]
+		assertEquals( list( -3, 1, 2 ), ContinuedFraction.terms( new MixedFraction( -7, 3 ) ) );
+		assertEquals( list( 5 ), ContinuedFraction.terms( new MixedFraction( 5 ) ) );
+	}
+	
+	@Test
+	public void knownApproximations() {
+		var gregorian = new MixedFraction( 365, 97, 400 );
+		assertEquals( new MixedFraction( 365, 1, 4 ), ContinuedFraction.bestApproximation( gregorian, BigInteger.valueOf( 4 ) ) );
+		assertEquals( new MixedFraction( 365, 8, 33 ), ContinuedFraction.bestApproximation( gregorian, BigInteger.valueOf( 33 ) ) );
+		assertEquals( gregorian, ContinuedFraction.bestApproximation( gregorian, BigInteger.valueOf( 400 ) ) );
+		
+		// 355/113 is the famous one for pi
+		var pi = new MixedFraction( new BigInteger( "314159265358979" ), new BigInteger( "100000000000000" ) );
+		assertEquals( new MixedFraction( 355, 113 ), ContinuedFraction.bestApproximation( pi, BigInteger.valueOf( 200 ) ) );
+		assertEquals( new MixedFraction( 22, 7 ), ContinuedFraction.bestApproximation( pi, BigInteger.valueOf( 10 ) ) );
+		
+		assertThrows( ArithmeticException.class, () -> ContinuedFraction.bestApproximation( pi, BigInteger.ZERO ) );
+	}
+	
+	@Test
+	public void sameAsBruteForce() {
+		var random = new Random( 11 );
+		for(int step=0; step<200; step++) {
+			var value = new MixedFraction( random.nextInt( 20000 ) - 10000, random.nextInt( 9999 ) + 1 );
+			int bound = random.nextInt( 60 ) + 1;
+			
+			// for every denominator the closest numerator is the rounded one, on both sides
+			var best_error = (MixedFraction) null;
+			for(int q=1; q<=bound; q++) {
+				var scaled = value.multiply( q );
+				for(var p : new BigInteger[]{ scaled.getInteger(), scaled.getInteger().add( BigInteger.ONE ), scaled.getInteger().subtract( BigInteger.ONE ) }) {
+					var error = new MixedFraction( p, BigInteger.valueOf( q ) ).subtract( value ).abs();
+					if( best_error == null || error.compareTo( best_error ) < 0 ) {
+						best_error = error;
+					}
+				}
+			}
+			
+			var result = ContinuedFraction.bestApproximation( value, BigInteger.valueOf( bound ) );
+			assertTrue( result.getDenominator().compareTo( BigInteger.valueOf( bound ) ) <= 0 );
+			assertEquals( best_error, result.subtract( value ).abs(), value + " with bound " + bound );
+		}
+	}
+	
+	@Test
+	public void approximations() {
+		// 29 191/360 = [29; 1, 1, 7, 1, 2, 7]
+		var month = new MixedFraction( 29, 191, 360 );
+		var result = ContinuedFraction.approximations( month, BigInteger.valueOf( 1000 ) );
+		var fractions = new ArrayList<MixedFraction>();
+		for(var approximation : result) {
+			if( approximation.convergent() ) {
+				fractions.add( approximation.toMixedFraction() );
+			}
+		}
+		assertEquals( List.of(
+				new MixedFraction( 29 ), new MixedFraction( 30 ), new MixedFraction( 59, 2 ),
+				new MixedFraction( 443, 15 ), new MixedFraction( 502, 17 ),
+				new MixedFraction( 1447, 49 ), new MixedFraction( 10631, 360 )
+		), fractions );
+		
+		// semiconvergents halfway through the terms 7, 2 and 7, none for the ones
+		assertEquals( 10, result.size() );
+		assertEquals( new MixedFraction( 266, 9 ), result.get( 3 ).toMixedFraction() );
+		assertFalse( result.get( 3 ).convergent() );
+		
+		var denominator = BigInteger.ZERO;
+		for(var approximation : result) {
+			assertTrue( approximation.denominator().compareTo( denominator ) >= 0 );
+			denominator = approximation.denominator();
+		}
+		
+		assertEquals( 6, ContinuedFraction.approximations( month, BigInteger.valueOf( 20 ) ).size() );
+	}
+}
@@ -0,0 +1,94 @@
+package pl.felixspeagel.calcal.math;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FactorizationTest {
+	
+	private static BigInteger[] bruteForceDivisors(long number) {
+		var divisors = new LinkedList<BigInteger>();
+		for(long i=1; i<=number; i++) {
+			if( number % i == 0 ) {
+				divisors.add( BigInteger.valueOf( i ) );
+			}
+		}
+		return divisors.toArray( BigInteger[]::new );
+	}
+	
+	private static BigInteger multiplyBack(Map<BigInteger, Integer> factors) {
+		var product = BigInteger.ONE;
+		for(var factor : factors.entrySet()) {
+			assertTrue( Factorization.isPrime( factor.getKey() ) );
+			product = product.multiply( factor.getKey().pow( factor.getValue() ) );
+		}
+		return product;
+	}
+	
+	@Test
+	public void sameAsBruteForce() {
+		var random = new Random( 5 );
+		for(int i=0; i<300; i++) {
+			long number = random.nextInt( 100_000 ) + 1;
+			assertArrayEquals(
+					bruteForceDivisors( number ),
+					Factorization.divisors( BigInteger.valueOf( number ) ),
+					"divisors of " + number
+			);
+		}
+	}
+	
+	@Test
+	public void knownFactors() {
+		var factors = Factorization.primeFactors( BigInteger.valueOf( -10000 ) );
+		assertEquals( Map.of( BigInteger.TWO, 4, BigInteger.valueOf( 5 ), 4 ), factors );
+		
+		// 999999999999 = 3^3 * 7 * 11 * 13 * 37 * 101 * 9901
+		factors = Factorization.primeFactors( BigInteger.valueOf( 999999999999L ) );
+		assertEquals( 7, factors.size() );
+		assertEquals( 3, factors.get( BigInteger.valueOf( 3 ) ) );
+		assertEquals( BigInteger.valueOf( 999999999999L ), multiplyBack( factors ) );
+		
+		assertTrue( Factorization.primeFactors( BigInteger.ONE ).isEmpty() );
+		assertThrows( ArithmeticException.class, () -> Factorization.primeFactors( BigInteger.ZERO ) );
+	}
+	
+	@Test
+	public void primes() {
+		assertFalse( Factorization.isPrime( BigInteger.ONE ) );
+		assertTrue( Factorization.isPrime( BigInteger.TWO ) );
+		assertTrue( Factorization.isPrime( BigInteger.valueOf( Long.MAX_VALUE - 24 ) ) ); // 2^63 - 25
+		assertFalse( Factorization.isPrime( BigInteger.valueOf( 3215031751L ) ) ); // strong pseudoprime to bases 2, 3, 5, 7
+		assertTrue( Factorization.isPrime( BigInteger.ONE.shiftLeft( 127 ).subtract( BigInteger.ONE ) ) );
+	}
+	
+	@Test
+	public void largeDenominatorsAreFast() {
+		// two 11-digit primes, the worst case for trial division
+		var p = new BigInteger( "10000000019" );
+		var q = new BigInteger( "99999999977" );
+		var semiprime = p.multiply( q );
+		// a 30-digit number with many small factors and one big prime
+		var mixed = BigInteger.valueOf( 2 * 2 * 3 * 5 * 7 ).multiply( BigInteger.TEN.pow( 20 ) ).multiply( p );
+		
+		assertTimeoutPreemptively( Duration.ofSeconds( 2 ), () -> {
+			var divisors = Factorization.divisors( semiprime );
+			assertArrayEquals( new BigInteger[]{BigInteger.ONE, p, q, semiprime}, divisors );
+			
+			var factors = Factorization.primeFactors( mixed );
+			assertEquals( mixed, multiplyBack( factors ) );
+			divisors = Factorization.divisors( mixed );
+			assertEquals( 23 * 2 * 22 * 2 * 2, divisors.length ); // 2^22 * 3 * 5^21 * 7 * p
+			for(int i=1; i<divisors.length; i++) {
+				assertTrue( divisors[i-1].compareTo( divisors[i] ) < 0 );
+				assertEquals( BigInteger.ZERO, mixed.mod( divisors[i] ) );
+			}
+		} );
+	}
+}
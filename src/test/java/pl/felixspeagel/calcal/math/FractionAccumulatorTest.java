@@ -0,0 +1,96 @@
+package pl.felixspeagel.calcal.math;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FractionAccumulatorTest {
+	
+	private void assertSame(MixedFraction expected, FractionAccumulator accumulator) {
+		var result = accumulator.toMixedFraction();
+		assertEquals( expected, result );
+		assertEquals( expected.hashCode(), result.hashCode() );
+		assertEquals( expected.toString(), result.toString() );
+		assertEquals( expected.getInteger(), accumulator.getInteger() );
+		assertEquals( expected.getFraction(), accumulator.getFraction() );
+		assertEquals( expected.isNegative(), accumulator.isNegative() );
+		assertEquals( 0, accumulator.compareTo( expected ) );
+	}
+	
+	@Test
+	public void sameAsImmutableChain() {
+		var random = new Random( 42 );
+		var month = new MixedFraction( 29, 191, 360 );
+		var year = new MixedFraction( 365, 2425, 10000 );
+		
+		var expected = MixedFraction.ZERO;
+		var accumulator = new FractionAccumulator();
+		for(int step=0; step<10000; step++) {
+			switch( random.nextInt( 5 ) ) {
+				case 0 -> {
+					expected = expected.add( month );
+					accumulator.add( month );
+				}
+				case 1 -> {
+					expected = expected.subtract( year );
+					accumulator.subtract( year );
+				}
+				case 2 -> {
+					var other = new MixedFraction( random.nextInt( 1000 ) - 500, random.nextInt( 999 ) + 1 );
+					expected = expected.add( other );
+					accumulator.add( other );
+				}
+				case 3 -> {
+					var integer = random.nextInt( 20 ) - 10;
+					expected = expected.add( BigInteger.valueOf( integer ) );
+					accumulator.add( integer );
+				}
+				default -> {
+					var threshold = new MixedFraction( random.nextInt( 2000 ) - 1000, random.nextInt( 9 ) + 1 );
+					assertEquals(
+							Integer.signum( expected.compareTo( threshold ) ),
+							Integer.signum( accumulator.compareTo( threshold ) )
+					);
+				}
+			}
+			if( step % 97 == 0 ) {
+				assertSame( expected, accumulator );
+			}
+		}
+		assertSame( expected, accumulator );
+	}
+	
+	@Test
+	public void sameAsImmutableChainAfterOverflow() {
+		var random = new Random( 7 );
+		var huge = new MixedFraction( BigInteger.valueOf( Long.MAX_VALUE / 3 ), BigInteger.valueOf( 1_000_003 ) );
+		
+		// a few primes near 2^31, so the common denominator overflows a long quickly but stays bounded
+		var primes = new int[]{ 2147483647, 2147483629, 2147483587, 2147483579 };
+		
+		var expected = MixedFraction.ZERO;
+		var accumulator = new FractionAccumulator();
+		for(int step=0; step<40; step++) {
+			var other = new MixedFraction( random.nextInt(), primes[random.nextInt( primes.length )] );
+			if( random.nextBoolean() ) {
+				expected = expected.add( other );
+				accumulator.add( other );
+			} else {
+				expected = expected.add( huge );
+				accumulator.add( huge );
+			}
+			if( step % 10 == 0 ) {
+				expected = expected.subtract( BigInteger.valueOf( Long.MAX_VALUE ) );
+				accumulator.subtract( BigInteger.valueOf( Long.MAX_VALUE ) );
+			}
+			assertSame( expected, accumulator );
+		}
+		
+		//back to small numbers
+		accumulator.subtract( expected );
+		assertSame( MixedFraction.ZERO, accumulator );
+	}
+}
@@ -3,6 +3,7 @@ package pl.felixspeagel.calcal.math;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigInteger;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -112,4 +113,36 @@ class FunctionsTest {
 		assertEquals( BigInteger.valueOf( 5 ), result[2]);
 		assertEquals( BigInteger.valueOf( 10 ), result[3]);
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void longGCDSameAsBigInteger() {
+		var random = new Random( 1 );
+		for(int i=0; i<10000; i++) {
+			long a = random.nextLong() >> random.nextInt( 63 );
+			long b = random.nextLong() >> random.nextInt( 63 );
+			if( i % 3 == 0 ) {
+				// make sure there is a bigger common divisor
+				long common = random.nextInt( 1000 ) + 1;
+				a = a / 1000 * common;
+				b = b / 1000 * common;
+			}
+			var shouldBe = BigInteger.valueOf( a ).gcd( BigInteger.valueOf( b ) );
+			
+			assertEquals( shouldBe.longValue(), Functions.gcd( a, b ) );
+			assertEquals( shouldBe, Functions.gcd( BigInteger.valueOf( a ), BigInteger.valueOf( b ) ) );
+		}
+		
+		assertEquals( 0, Functions.gcd( 0L, 0L ) );
+		assertEquals( 1L << 62, Functions.gcd( Long.MIN_VALUE, 1L << 62 ) );
+		assertThrows( ArithmeticException.class, () -> Functions.gcd( Long.MIN_VALUE, 0L ) );
+	}
+	
+	@Test
+	public void bigGCD() {
+		var a = BigInteger.TEN.pow( 40 ).multiply( BigInteger.valueOf( 3 ) );
+		var b = BigInteger.TEN.pow( 30 ).multiply( BigInteger.valueOf( 7 ) ).negate();
+		
+		assertEquals( BigInteger.TEN.pow( 30 ), Functions.gcd( a, b ) );
+		assertEquals( BigInteger.TEN.pow( 30 ), Functions.gcd( b, a ) );
+	}
+}
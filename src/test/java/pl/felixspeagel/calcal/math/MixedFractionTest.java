@@ -3,6 +3,7 @@ package pl.felixspeagel.calcal.math;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigInteger;
+import java.util.HashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -230,6 +231,16 @@ class MixedFractionTest {
 		assertEquals( shouldBe, MixedFraction.fromString( txt ) );
 	}
 	
+	@Test
+	public void stringReadBigNumbers() {
+		var big = new BigInteger( "98765432109876543210" );
+		assertEquals( new MixedFraction( big.negate(), BigInteger.ONE, big ), MixedFraction.fromString( " -98765432109876543210 1/98765432109876543210 " ) );
+		assertEquals( new MixedFraction( big, BigInteger.valueOf( 3 ) ), MixedFraction.fromString( "98765432109876543210/3" ) );
+		assertThrows( NumberFormatException.class, () -> MixedFraction.fromString( "1 1/" ) );
+		assertThrows( NumberFormatException.class, () -> MixedFraction.fromString( "x" ) );
+		assertThrows( ArithmeticException.class, () -> MixedFraction.fromString( "1/0" ) );
+	}
+	
 	@Test
 	public void comparison() {
 		var a = new MixedFraction( one );
@@ -317,4 +328,85 @@ class MixedFractionTest {
 		result = f.floor();
 		assertEquals( BigInteger.valueOf( -1 ), result );
 	}
+	
+	@Test
+	public void overflowPromotesToBigInteger() {
+		var max = BigInteger.valueOf( Long.MAX_VALUE );
+		var big = new MixedFraction( max, BigInteger.valueOf( 3 ) );
+		
+		var sum = big.add( big );
+		assertEquals( max.multiply( two ), sum.getTrueNumerator() );
+		assertEquals( BigInteger.valueOf( 3 ), sum.getDenominator() );
+		
+		var product = big.multiply( big );
+		assertEquals( max.multiply( max ), product.getTrueNumerator() );
+		assertEquals( BigInteger.valueOf( 9 ), product.getDenominator() );
+		
+		// going back into the long range gives the same value as never leaving it
+		assertEquals( big, sum.subtract( big ) );
+		assertEquals( big.hashCode(), sum.subtract( big ).hashCode() );
+		assertEquals( big, product.divide( big ) );
+	}
+	
+	@Test
+	public void comparisonNearOverflow() {
+		var max = BigInteger.valueOf( Long.MAX_VALUE );
+		var a = new MixedFraction( max, max.subtract( one ) );
+		var b = new MixedFraction( max.subtract( one ), max.subtract( two ) );
+		
+		// a = 1 + 1/(max-1) < b = 1 + 1/(max-2)
+		assertTrue( a.compareTo( b ) < 0 );
+		assertTrue( b.compareTo( a ) > 0 );
+		assertTrue( a.negate().compareTo( b.negate() ) > 0 );
+	}
+	
+	@Test
+	public void longMinValueIsNotKeptAsLong() {
+		var min = new MixedFraction( BigInteger.valueOf( Long.MIN_VALUE ) );
+		
+		assertEquals( BigInteger.valueOf( Long.MIN_VALUE ).negate(), min.negate().getInteger() );
+		assertEquals( BigInteger.valueOf( Long.MIN_VALUE ).negate(), min.abs().getInteger() );
+		assertEquals( new MixedFraction( Integer.MIN_VALUE ).multiply( Integer.MIN_VALUE ).multiply( -2 ), min );
+	}
+	
+	@Test
+	public void addingAnIntegerDownToLongMinValue() {
+		var min = new MixedFraction( BigInteger.valueOf( Long.MIN_VALUE ) );
+		var sum = new MixedFraction( BigInteger.valueOf( Long.MIN_VALUE + 1 ) ).add( BigInteger.valueOf( -1 ) );
+		
+		assertEquals( min, sum );
+		assertEquals( sum, min );
+		assertEquals( min.hashCode(), sum.hashCode() );
+		assertEquals( BigInteger.valueOf( Long.MIN_VALUE ).negate(), sum.negate().getInteger() );
+		assertEquals( BigInteger.valueOf( Long.MIN_VALUE ).negate(), sum.abs().getInteger() );
+		
+		// (MIN + 3)/3 - 1 = MIN/3, with the numerator reaching Long.MIN_VALUE
+		var third = new MixedFraction( BigInteger.valueOf( Long.MIN_VALUE + 3 ), BigInteger.valueOf( 3 ) ).add( BigInteger.valueOf( -1 ) );
+		var expected = new MixedFraction( BigInteger.valueOf( Long.MIN_VALUE ), BigInteger.valueOf( 3 ) );
+		assertEquals( expected, third );
+		assertEquals( third, expected );
+		assertEquals( expected.negate(), third.negate() );
+	}
+	
+	@Test
+	public void resultsOfArithmeticBehaveAsReduced() {
+		// 1/6 + 1/3 = 3/6 internally, which must act as 1/2
+		var sum = new MixedFraction( 1, 6 ).add( new MixedFraction( 1, 3 ) );
+		
+		assertEquals( MixedFraction.ONE_HALF, sum );
+		assertEquals( sum, MixedFraction.ONE_HALF );
+		assertEquals( MixedFraction.ONE_HALF.hashCode(), sum.hashCode() );
+		assertEquals( "1/2", sum.toString() );
+		assertEquals( one, sum.getNumerator() );
+		assertEquals( two, sum.getDenominator() );
+		
+		var map = new HashMap<MixedFraction, String>();
+		map.put( MixedFraction.ONE_HALF, "half" );
+		assertEquals( "half", map.get( sum ) );
+		
+		var mixed = new MixedFraction( 7, 4 ).multiply( new MixedFraction( 2, 3 ) ); // 14/12
+		assertEquals( one, mixed.getInteger() );
+		assertEquals( new MixedFraction( 1, 6 ), mixed.getFraction() );
+		assertEquals( "1 1/6", mixed.toString() );
+	}
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package pl.felixspeagel.calcal.math;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigInteger;
+import java.time.Duration;
 import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -67,6 +69,15 @@ class NumberConverterTest {
 		assertEquals( correct, result );
 	}
 	
+	@Test
+	void FractionToDHMS_text_readsBack() throws WrongNumberFormat {
+		// the seconds have a period of 1008 digits
+		var length = new MixedFraction( 365, 1, 1009 );
+		var text = NumberConverter.FractionToDHMS_text( length, EARTH_DAY );
+		assertFalse( text.contains( NumberConverter.ELLIPSIS ) );
+		assertEquals( length, NumberConverter.DHMS_textToFraction( text, EARTH_DAY ) );
+	}
+	
 	@Test
 	void FractionToDecimalText_normalFractions() {
 		var one_eighth = new MixedFraction( 1, 8 );
@@ -136,6 +147,61 @@ class NumberConverterTest {
 		assertEquals( "42.4(3)", result );
 	}
 	
+	@Test
+	void FractionToDecimalText_longPeriods() {
+		var result = NumberConverter.FractionToDecimalText( new MixedFraction( 1, 97 ) );
+		assertEquals( "0.(010309278350515463917525773195876288659793814432989690721649484536082474226804123711340206185567)", result );
+		
+		result = NumberConverter.FractionToDecimalText( new MixedFraction( 1, 7340032 ) ); // 2^20 * 7
+		assertEquals( 20 + 6 + 4, result.length() );
+		assertTrue( result.startsWith( "0.00000013623918805803(" ) );
+		assertTrue( result.endsWith( "(571428)" ) );
+	}
+	
+	@Test
+	void FractionToDecimalText_maxDigits() {
+		// prime denominator, the period has almost a billion digits
+		var huge_period = new MixedFraction( 1, 999999937 );
+		var result = NumberConverter.FractionToDecimalText( huge_period, 20 );
+		assertEquals( "0.(00000000100000006300" + NumberConverter.ELLIPSIS + ")", result );
+		
+		result = NumberConverter.FractionToDecimalText( new MixedFraction( 5, 12 ), 20 );
+		assertEquals( "0.41(6)", result );
+		result = NumberConverter.FractionToDecimalText( new MixedFraction( 5, 12 ), 2 );
+		assertEquals( "0.41(" + NumberConverter.ELLIPSIS + ")", result );
+		result = NumberConverter.FractionToDecimalText( new MixedFraction( -3, 1, 1024 ), 4 );
+		assertEquals( "-3.0009" + NumberConverter.ELLIPSIS, result );
+		
+		// the display form is capped, the exact one reads back
+		result = NumberConverter.FractionToDecimalText( huge_period );
+		assertEquals( "0.(".length() + NumberConverter.DISPLAY_DIGITS + NumberConverter.ELLIPSIS.length() + ")".length(), result.length() );
+		var long_period = new MixedFraction( 1, 1009 ); // period of 1008 digits
+		assertTrue( NumberConverter.FractionToDecimalText( long_period ).contains( NumberConverter.ELLIPSIS ) );
+	}
+	
+	@Test
+	void FractionToDecimalText_largeDenominatorsAreFast() {
+		// two 30-digit primes, far too big to factor the denominator for its period
+		var p = BigInteger.TEN.pow( 29 ).nextProbablePrime();
+		var q = BigInteger.TEN.pow( 30 ).nextProbablePrime();
+		var fraction = new MixedFraction( BigInteger.ONE, p.multiply( q ) );
+		
+		var result = assertTimeoutPreemptively( Duration.ofSeconds( 2 ), () -> NumberConverter.FractionToDecimalText( fraction ) );
+		// the first digits by a plain division
+		var digits = BigInteger.TEN.pow( NumberConverter.DISPLAY_DIGITS ).divide( p.multiply( q ) ).toString();
+		assertTrue( result.startsWith( "0.(" + "0".repeat( NumberConverter.DISPLAY_DIGITS - digits.length() ) + digits ) );
+		assertTrue( result.endsWith( NumberConverter.ELLIPSIS + ")" ) );
+		assertEquals( "0.(".length() + NumberConverter.DISPLAY_DIGITS + NumberConverter.ELLIPSIS.length() + ")".length(), result.length() );
+	}
+	
+	@Test
+	void FractionToExactDecimalText_readsBack() throws WrongNumberFormat {
+		var long_period = new MixedFraction( 1, 1009 );
+		var text = NumberConverter.FractionToExactDecimalText( long_period );
+		assertFalse( text.contains( NumberConverter.ELLIPSIS ) );
+		assertEquals( long_period, NumberConverter.DecimalTextToFraction( text ) );
+	}
+	
 	@Test
 	void DecimalTextToFraction_periodFractions() throws WrongNumberFormat {
 		var one_third = new MixedFraction( 1, 3 );
@@ -159,4 +225,57 @@ class NumberConverterTest {
 		assertEquals( with_whole_number, result );
 	}
 	
+	
+	@Test
+	void DecimalTextToFraction_longDigits() throws WrongNumberFormat {
+		var result = NumberConverter.DecimalTextToFraction( "123456789012345678901234567890.5" );
+		var shouldBe = new MixedFraction( new BigInteger( "123456789012345678901234567890" ), BigInteger.ONE, BigInteger.TWO );
+		assertEquals( shouldBe, result );
+		
+		result = NumberConverter.DecimalTextToFraction( "0.(0588235294117647)" );
+		assertEquals( new MixedFraction( 1, 17 ), result );
+		
+		result = NumberConverter.DecimalTextToFraction( "-1.00000000000000000001" );
+		shouldBe = new MixedFraction( BigInteger.valueOf( -1 ), BigInteger.ONE, BigInteger.TEN.pow( 20 ) );
+		assertEquals( shouldBe, result );
+		
+		for(var wrong : new String[]{ "", "-", "1.", "1.(", "1.()", "1.2(3", "1.(2)3", "1..2", "1.2.3", "1 2", "--1" }) {
+			assertThrows( WrongNumberFormat.class, () -> NumberConverter.DecimalTextToFraction( wrong ), wrong );
+		}
+	}
+	
+	@Test
+	void DecimalTextToFraction_followsLocale() throws WrongNumberFormat {
+		Locale.setDefault( Locale.GERMANY );
+		assertEquals( new MixedFraction( 1, 2 ), NumberConverter.DecimalTextToFraction( "0,5" ) );
+		assertEquals( "0,(3)", NumberConverter.FractionToDecimalText( new MixedFraction( 1, 3 ) ) );
+		assertThrows( WrongNumberFormat.class, () -> NumberConverter.DecimalTextToFraction( "0.5" ) );
+		
+		Locale.setDefault( Locale.ROOT );
+		assertEquals( new MixedFraction( 1, 2 ), NumberConverter.DecimalTextToFraction( "0.5" ) );
+	}
+	
+	@Test
+	void DHMS_textToFraction_otherForms() throws WrongNumberFormat {
+		var result = NumberConverter.DHMS_textToFraction( " 1\t6H  30M 7.5S ", EARTH_DAY );
+		assertEquals( new MixedFraction( 1, 2 * ( 6 * 3600 + 30 * 60 ) + 15, 2 * 86400 ), result );
+		
+		result = NumberConverter.DHMS_textToFraction( "-2 0.(3)s", EARTH_DAY );
+		assertEquals( new MixedFraction( -2, 1, 3 * 86400 ), result );
+		
+		result = NumberConverter.DHMS_textToFraction( "3 30m", EARTH_DAY );
+		assertEquals( new MixedFraction( 3, 1, 48 ), result );
+		
+		for(var wrong : new String[]{ "", "1h", "5 3.5h", "5 30m 2h", "5 2h 2h", "5 2x", "5 2h3m", "5 1s 2s" }) {
+			assertThrows( WrongNumberFormat.class, () -> NumberConverter.DHMS_textToFraction( wrong, EARTH_DAY ), wrong );
+		}
+	}
+	
+	@Test
+	void TextToFraction_wrongText() {
+		for(var wrong : new String[]{ "", "1/", "/2", "1 2", "1 2/", "1/0", "- 1", "1/2/3", "1\t1/2" }) {
+			assertThrows( WrongNumberFormat.class, () -> NumberConverter.TextToFraction( wrong ), wrong );
+		}
+	}
+
 }
\ No newline at end of file